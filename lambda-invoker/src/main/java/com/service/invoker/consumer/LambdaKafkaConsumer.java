@@ -1,6 +1,7 @@
 package com.lambda.invoker.consumer;
 
 import com.lambda.invoker.service.LambdaTriggerService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,9 +23,10 @@ public class LambdaKafkaConsumer {
     }
 
     @KafkaListener(topics = "${KAFKA_TOPIC:user-created-events}", groupId = "${KAFKA_GROUP_ID:lambda-invoker-group}")
-    public void onMessage(String message) {
-        log.info("lambda-invoker received Kafka message: {}", message);
+    public void onMessage(ConsumerRecord<String, byte[]> record) {
+        log.info("lambda-invoker received Kafka message: key={} ({} bytes)",
+                record.key(), record.value() != null ? record.value().length : 0);
 
-        lambdaTriggerService.invokeLambdaWithMessage(message);
+        lambdaTriggerService.invokeLambdaWithRecord(record);
     }
 }
@@ -1,19 +1,45 @@
 package com.lambda.invoker.model;
 
 import com.amazonaws.services.lambda.runtime.events.KafkaEvent;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class KafkaEventBuilder {
 
-    public static KafkaEvent build(String topic, String payload) {
+    /**
+     * Builds the event the way Lambda's Kafka event source does:
+     * key and value base64-encoded, headers passed through as raw bytes.
+     */
+    public static KafkaEvent build(ConsumerRecord<String, byte[]> consumerRecord) {
         KafkaEvent event = new KafkaEvent();
         KafkaEvent.KafkaEventRecord record = new KafkaEvent.KafkaEventRecord();
-        record.setValue(payload);
+        record.setTopic(consumerRecord.topic());
+        record.setPartition(consumerRecord.partition());
+        record.setOffset(consumerRecord.offset());
+        record.setTimestamp(consumerRecord.timestamp());
+        if (consumerRecord.key() != null) {
+            record.setKey(Base64.getEncoder().encodeToString(consumerRecord.key().getBytes(StandardCharsets.UTF_8)));
+        }
+        if (consumerRecord.value() != null) {
+            record.setValue(Base64.getEncoder().encodeToString(consumerRecord.value()));
+        }
+
+        List<Map<String, byte[]>> headers = new ArrayList<>();
+        for (Header header : consumerRecord.headers()) {
+            headers.add(Collections.singletonMap(header.key(), header.value()));
+        }
+        record.setHeaders(headers);
 
         event.setRecords(
                 Collections.singletonMap(
-                        topic,
+                        consumerRecord.topic() + "-" + consumerRecord.partition(),
                         Collections.singletonList(record)
                 )
         );
@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.lambda.invoker.model.KafkaEventBuilder;
 import org.apache.hc.client5.http.fluent.Request;
 import org.apache.hc.core5.http.ContentType;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -20,12 +21,9 @@ public class LambdaTriggerService {
     @Value("${LAMBDA_URL:http://notification-service:8080/2015-03-31/functions/function/invocations}")
     private String lambdaUrl;
 
-    @Value("${KAFKA_TOPIC:user-created-events}")
-    private String topic;
-
-    public void invokeLambdaWithMessage(String payload) {
+    public void invokeLambdaWithRecord(ConsumerRecord<String, byte[]> record) {
         try {
-            KafkaEvent event = KafkaEventBuilder.build(topic, payload);
+            KafkaEvent event = KafkaEventBuilder.build(record);
             String json = mapper.writeValueAsString(event);
 
             log.info("Invoking local Lambda at {}", lambdaUrl);
@@ -35,7 +33,7 @@ public class LambdaTriggerService {
                     .execute()
                     .returnContent();
 
-            log.info("Lambda invocation successful for payload: {}", payload);
+            log.info("Lambda invocation successful for record: {}-{}@{}", record.topic(), record.partition(), record.offset());
 
         } catch (Exception e) {
             log.error("Error invoking lambda", e);
@@ -3,6 +3,7 @@ package com.service.notification;
 import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.KafkaEvent;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
@@ -11,10 +12,31 @@ import com.service.notification.model.UserCreatedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
 public class NotificationHandler implements RequestHandler<KafkaEvent, Void> {
 
     private static final Logger log = LoggerFactory.getLogger(NotificationHandler.class);
 
+    // Set by user-api-service when the outbox payload is compressed
+    static final String CONTENT_ENCODING_HEADER = "content-encoding";
+
+    // Bulk operations pack many events into one envelope record under this array
+    static final String ENVELOPE_EVENTS_FIELD = "events";
+
+    // Names the type of the packed events, e.g. "UserDeletedEvent"
+    static final String ENVELOPE_EVENT_TYPE_FIELD = "eventType";
+
+    // The only event type this handler acts on
+    static final String USER_CREATED_EVENT_TYPE = UserCreatedEvent.class.getSimpleName();
+
     private final ObjectMapper mapper;
     private final ProfileApiClient profileApiClient;
 
@@ -44,7 +66,7 @@ public class NotificationHandler implements RequestHandler<KafkaEvent, Void> {
             log.info("Processing topicPartition={} records={}", topicPartition, records.size());
             for (KafkaEvent.KafkaEventRecord record : records) {
                 try {
-                    processSingleRecord(record.getValue(), context);
+                    processSingleRecord(decodeValue(record), context);
                 } catch (Exception ex) {
                     lambdaLogger.log("[notification] ERROR processing record on " + topicPartition + ": " + ex.getMessage() + "\n");
                     log.error("Error processing record on {}: {}", topicPartition, ex.getMessage(), ex);
@@ -56,13 +78,78 @@ public class NotificationHandler implements RequestHandler<KafkaEvent, Void> {
         return null;
     }
 
+    /**
+     * Returns the record value as JSON text. The Kafka event source (and the
+     * lambda-invoker's KafkaEventBuilder) always base64-encodes record values; the
+     * decoded bytes are additionally gzip-compressed when the content-encoding
+     * header says so.
+     */
+    static String decodeValue(KafkaEvent.KafkaEventRecord record) throws IOException {
+        String value = record.getValue();
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        byte[] bytes = Base64.getDecoder().decode(value);
+        if ("gzip".equalsIgnoreCase(header(record.getHeaders(), CONTENT_ENCODING_HEADER))) {
+            try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+                bytes = gzip.readAllBytes();
+            }
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String header(List<Map<String, byte[]>> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map<String, byte[]> header : headers) {
+            byte[] value = header.get(name);
+            if (value != null) {
+                return new String(value, StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
     private void processSingleRecord(String payload, Context context) throws Exception {
         var lambdaLogger = context.getLogger();
         lambdaLogger.log("[notification] raw payload: " + payload + "\n");
         log.debug("Processing payload: {}", payload);
 
-        UserCreatedEvent event = mapper.readValue(payload, UserCreatedEvent.class);
+        // Older producers JSON-encoded the already serialized event a second time
+        if (payload != null && payload.startsWith("\"")) {
+            payload = mapper.readValue(payload, String.class);
+        }
+        JsonNode node = mapper.readTree(payload);
+
+        JsonNode envelopeEvents = node.get(ENVELOPE_EVENTS_FIELD);
+        if (envelopeEvents == null || !envelopeEvents.isArray()) {
+            processEvent(mapper.treeToValue(node, UserCreatedEvent.class), context);
+            return;
+        }
 
+        // An envelope: only user-created events get a profile; anything else (e.g. a
+        // bulk delete) is not this handler's business and must not create one
+        String eventType = node.path(ENVELOPE_EVENT_TYPE_FIELD).asText();
+        if (!USER_CREATED_EVENT_TYPE.equals(eventType)) {
+            log.info("Ignoring envelope {} of {} {} events", node.path("envelopeId").asText(),
+                    envelopeEvents.size(), eventType);
+            return;
+        }
+        // Handle each packed event as if it had arrived on its own
+        log.info("Unpacking envelope {} with {} events", node.path("envelopeId").asText(), envelopeEvents.size());
+        for (JsonNode element : envelopeEvents) {
+            try {
+                processEvent(mapper.treeToValue(element, UserCreatedEvent.class), context);
+            } catch (Exception ex) {
+                lambdaLogger.log("[notification] ERROR processing enveloped event: " + ex.getMessage() + "\n");
+                log.error("Error processing event in envelope {}: {}", node.path("envelopeId").asText(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    private void processEvent(UserCreatedEvent event, Context context) {
+        var lambdaLogger = context.getLogger();
         lambdaLogger.log("[notification] processing userId=" + event.getUserId() + "\n");
         log.info("Processing userId={} username={}", event.getUserId(), event.getUsername());
 
@@ -9,10 +9,15 @@ import com.service.notification.model.UserCreatedEvent;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
 public class NotificationHandlerTest {
@@ -51,7 +56,8 @@ public class NotificationHandlerTest {
         KafkaEvent event = new KafkaEvent();
 
         KafkaEvent.KafkaEventRecord record = new KafkaEvent.KafkaEventRecord();
-        record.setValue(payloadJson); // <-- String is correct for your AWS libs
+        // The event source base64-encodes record values
+        record.setValue(Base64.getEncoder().encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8)));
 
         Map<String, List<KafkaEvent.KafkaEventRecord>> map = new HashMap<>();
         map.put("user-created-topic-0", List.of(record));
@@ -76,4 +82,60 @@ public class NotificationHandlerTest {
         assert captured.getUserId().equals("u123");
         assert captured.getUsername().equals("jdoe");
     }
+
+    @Test
+    void testDecodesBase64GzipValueNamedByHeader() throws Exception {
+        String json = "{\"userId\":\"u123\"}";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+
+        KafkaEvent.KafkaEventRecord record = new KafkaEvent.KafkaEventRecord();
+        record.setValue(Base64.getEncoder().encodeToString(compressed.toByteArray()));
+        record.setHeaders(List.of(Map.of("content-encoding", "gzip".getBytes(StandardCharsets.UTF_8))));
+
+        assertEquals(json, NotificationHandler.decodeValue(record));
+    }
+
+    @Test
+    void testDecodesBase64ValueWithoutContentEncoding() throws Exception {
+        // Uncompressed JSON is still base64-encoded, and may itself start with any character
+        String json = "[\"not an object\"]";
+
+        KafkaEvent.KafkaEventRecord record = new KafkaEvent.KafkaEventRecord();
+        record.setValue(Base64.getEncoder().encodeToString(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(json, NotificationHandler.decodeValue(record));
+    }
+
+    @Test
+    void testUnpacksEnvelopeIntoIndividualEvents() throws Exception {
+        LambdaLogger mockLogger = mock(LambdaLogger.class);
+        Context mockContext = mock(Context.class);
+        when(mockContext.getLogger()).thenReturn(mockLogger);
+        ProfileApiClient mockClient = mock(ProfileApiClient.class);
+        NotificationHandler handler = new NotificationHandler(new ObjectMapper(), mockClient);
+
+        ObjectMapper mapper = new ObjectMapper();
+        Map<String, Object> envelope = new HashMap<>();
+        envelope.put("envelopeId", "env-1");
+        envelope.put("eventType", "UserCreatedEvent");
+        envelope.put("count", 2);
+        envelope.put("events", List.of(
+                new UserCreatedEvent("u1", "Ann", "Lee", "alee", "ann@example.com"),
+                new UserCreatedEvent("u2", "Bob", "Ray", "bray", "bob@example.com")));
+
+        KafkaEvent.KafkaEventRecord record = new KafkaEvent.KafkaEventRecord();
+        record.setValue(Base64.getEncoder().encodeToString(mapper.writeValueAsBytes(envelope)));
+        KafkaEvent event = new KafkaEvent();
+        event.setRecords(Map.of("user-created-topic-0", List.of(record)));
+
+        handler.handleRequest(event, mockContext);
+
+        ArgumentCaptor<UserCreatedEvent> captor = ArgumentCaptor.forClass(UserCreatedEvent.class);
+        verify(mockClient, times(2)).createProfile(captor.capture());
+        assertEquals("u1", captor.getAllValues().get(0).getUserId());
+        assertEquals("u2", captor.getAllValues().get(1).getUserId());
+    }
 }
@@ -8,6 +8,8 @@ import com.service.notification.NotificationHandler;
 import com.service.notification.model.UserCreatedEvent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
 
 public class LocalNotificationRunner {
@@ -23,8 +25,8 @@ public class LocalNotificationRunner {
 
         String payloadJson = new ObjectMapper().writeValueAsString(user);
 
-// KafkaEventRecord wants STRING, not bytes
-        record.setValue(payloadJson);
+// KafkaEventRecord wants a base64 STRING, as the event source sends it
+        record.setValue(Base64.getEncoder().encodeToString(payloadJson.getBytes(StandardCharsets.UTF_8)));
 
         event.setRecords(Collections.singletonMap(
                 "user-created-topic-0",
@@ -0,0 +1,97 @@
+package com.service.userapi.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.userapi.config.AppConfig;
+import com.service.userapi.model.UserCreatedEvent;
+import com.service.userapi.outbox.OutboxCollections;
+import com.service.userapi.outbox.deadletter.DeadLetterEventRepository;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.mock.MockProducerFactory;
+
+import java.time.Duration;
+
+/**
+ * Wires the outbox components by hand, without a Spring context, so the benchmarks
+ * measure the code under test rather than context startup.
+ *
+ * MongoDB is expected at -Dbenchmark.mongo.uri (default: a local, throwaway database).
+ * Kafka is replaced by an auto-completing MockProducer, so relay numbers show the
+ * outbox overhead on top of the broker, not broker latency.
+ */
+final class BenchmarkFixtures {
+
+    static final String USER_CREATED_TOPIC = "user-created-events";
+
+    private BenchmarkFixtures() {
+    }
+
+    static ObjectMapper objectMapper() {
+        // Same configuration as the application's @Primary ObjectMapper
+        return new AppConfig().objectMapper();
+    }
+
+    static UserCreatedEvent userCreatedEvent(long i) {
+        return new UserCreatedEvent("user-" + i, "user" + i, "user" + i + "@example.com", "First", "Last");
+    }
+
+    static SimpleMongoClientDatabaseFactory mongoDatabaseFactory() {
+        return new SimpleMongoClientDatabaseFactory(
+                System.getProperty("benchmark.mongo.uri", "mongodb://localhost:27017/userdb_benchmark"));
+    }
+
+    static OutboxCollections outboxCollections(MongoTemplate mongoTemplate) {
+        // The default single-collection storage mode, which never drops buckets and so needs no leader
+        return new OutboxCollections(mongoTemplate, null, "single", 60);
+    }
+
+    static DeadLetterEventRepository deadLetterRepository(MongoTemplate mongoTemplate) {
+        return new MongoRepositoryFactory(mongoTemplate).getRepository(DeadLetterEventRepository.class);
+    }
+
+    /**
+     * A MockProducer that survives KafkaTemplate closing it after each send.
+     */
+    static MockProducer<String, byte[]> mockProducer() {
+        return new MockProducer<>(true, new StringSerializer(), new ByteArraySerializer()) {
+            @Override
+            public void close(Duration timeout) {
+                // Shared across sends; cleared by the benchmark instead
+            }
+        };
+    }
+
+    /**
+     * The fast path is off in the benchmarks, so the writer never publishes application events.
+     */
+    static ApplicationEventPublisher noApplicationEvents() {
+        return event -> {
+        };
+    }
+
+    static KafkaCircuitBreaker circuitBreaker() {
+        return new KafkaCircuitBreaker(20, 30_000, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static KafkaProducerService kafkaProducerService(MockProducer<String, byte[]> producer,
+                                                     KafkaCircuitBreaker circuitBreaker) {
+        KafkaTemplate<String, byte[]> outboxTemplate = new KafkaTemplate<>(new MockProducerFactory<>(() -> producer));
+        // No transactional template: the relay publishes in the default (idempotent) mode
+        ObjectProvider<KafkaTemplate<String, byte[]>> noTransactionalTemplate =
+                (ObjectProvider) new StaticListableBeanFactory().getBeanProvider(KafkaTemplate.class);
+        return new KafkaProducerService(null, outboxTemplate, noTransactionalTemplate, circuitBreaker,
+                new SimpleMeterRegistry());
+    }
+}
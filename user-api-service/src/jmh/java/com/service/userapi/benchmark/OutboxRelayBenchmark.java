@@ -0,0 +1,113 @@
+package com.service.userapi.benchmark;
+
+import com.service.userapi.outbox.EventProcessingService;
+import com.service.userapi.outbox.OutboxCollections;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventClaimService;
+import com.service.userapi.outbox.OutboxEventCoalescer;
+import com.service.userapi.outbox.OutboxEventPoller;
+import com.service.userapi.outbox.OutboxEventWriter;
+import com.service.userapi.outbox.OutboxIndexInitializer;
+import com.service.userapi.outbox.OutboxMetrics;
+import com.service.userapi.outbox.OutboxRetryPolicy;
+import com.service.userapi.outbox.deadletter.DeadLetterService;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One OutboxEventPoller -> EventProcessingService round: claim a batch, publish it,
+ * acknowledge it. Before each invocation exactly one batch of pending events is
+ * inserted (not measured), so every op drains a full batch. Multiply ops/s by
+ * batchSize for events/s.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxRelayBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int batchSize;
+
+    @Param({"delete", "ttl"})
+    private String cleanupMode;
+
+    private SimpleMongoClientDatabaseFactory databaseFactory;
+    private MongoTemplate mongoTemplate;
+    private MockProducer<String, byte[]> producer;
+    private OutboxEventPoller poller;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() throws Exception {
+        databaseFactory = BenchmarkFixtures.mongoDatabaseFactory();
+        mongoTemplate = new MongoTemplate(databaseFactory);
+        mongoTemplate.dropCollection(OutboxEvent.class);
+        OutboxIndexInitializer indexInitializer = new OutboxIndexInitializer(mongoTemplate);
+        ReflectionTestUtils.setField(indexInitializer, "cleanupMode", cleanupMode);
+        ReflectionTestUtils.setField(indexInitializer, "publishedTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(indexInitializer, "deadLetterTtlSeconds", 3600L);
+        indexInitializer.createIndexes();
+
+        producer = BenchmarkFixtures.mockProducer();
+        KafkaCircuitBreaker circuitBreaker = BenchmarkFixtures.circuitBreaker();
+        KafkaProducerService kafkaProducerService = BenchmarkFixtures.kafkaProducerService(producer, circuitBreaker);
+
+        OutboxCollections collections = BenchmarkFixtures.outboxCollections(mongoTemplate);
+        OutboxEventClaimService claimService = new OutboxEventClaimService(mongoTemplate, collections, "benchmark");
+        ReflectionTestUtils.setField(claimService, "leaseDurationMs", 30_000L);
+        OutboxEventWriter writer = new OutboxEventWriter(mongoTemplate, collections, BenchmarkFixtures.objectMapper(),
+                BenchmarkFixtures.noApplicationEvents(), claimService, circuitBreaker);
+        DeadLetterService deadLetterService = new DeadLetterService(
+                mongoTemplate, collections, writer, BenchmarkFixtures.deadLetterRepository(mongoTemplate));
+        OutboxMetrics metrics = new OutboxMetrics(mongoTemplate, collections, new SimpleMeterRegistry());
+
+        EventProcessingService eventProcessingService = new EventProcessingService(
+                kafkaProducerService,
+                collections,
+                deadLetterService,
+                new OutboxEventCoalescer(false, 0, "user-updated-events", "user-deleted-events"),
+                mongoTemplate,
+                metrics,
+                new OutboxRetryPolicy(8, 1000, 300_000));
+        ReflectionTestUtils.setField(eventProcessingService, "ackTimeoutMs", 10_000L);
+        ReflectionTestUtils.setField(eventProcessingService, "cleanupMode", cleanupMode);
+
+        poller = new OutboxEventPoller(eventProcessingService, claimService, metrics, circuitBreaker);
+        payload = BenchmarkFixtures.objectMapper().writeValueAsBytes(BenchmarkFixtures.userCreatedEvent(42));
+    }
+
+    @Setup(Level.Invocation)
+    public void seedBatch() {
+        List<OutboxEvent> events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            events.add(new OutboxEvent(BenchmarkFixtures.USER_CREATED_TOPIC, "user-" + i, payload));
+        }
+        mongoTemplate.insertAll(events);
+        // MockProducer keeps every record it was sent
+        producer.clear();
+    }
+
+    @Benchmark
+    public int pollAndPublish() {
+        return poller.pollAndPublishEvents(batchSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        mongoTemplate.dropCollection(OutboxEvent.class);
+        databaseFactory.destroy();
+    }
+}
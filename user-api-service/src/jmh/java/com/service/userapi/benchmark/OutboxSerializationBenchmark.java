@@ -0,0 +1,54 @@
+package com.service.userapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.userapi.model.UserCreatedEvent;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of turning a domain event into an outbox event, as done by UserService
+ * for every registration. No I/O involved.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private OutboxEventWriter writer;
+    private UserCreatedEvent event;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        // toOutboxEvent() does not touch the repository
+        writer = new OutboxEventWriter(null, null, objectMapper, BenchmarkFixtures.noApplicationEvents(),
+                null, BenchmarkFixtures.circuitBreaker());
+        event = BenchmarkFixtures.userCreatedEvent(42);
+    }
+
+    // The pre-binary path: serialize to a String, then encode it to bytes for the wire
+    @Benchmark
+    public byte[] serializeViaString() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(event).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeToBytes() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(event);
+    }
+
+    // What UserService does per event: serialize and build the outbox document
+    @Benchmark
+    public OutboxEvent buildOutboxEvent() throws JsonProcessingException {
+        return writer.toOutboxEvent(BenchmarkFixtures.USER_CREATED_TOPIC, event.getUserId(), event);
+    }
+}
@@ -0,0 +1,74 @@
+package com.service.userapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.service.userapi.outbox.OutboxCollections;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventClaimService;
+import com.service.userapi.outbox.OutboxEventWriter;
+import com.service.userapi.outbox.OutboxIndexInitializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and inserting outbox events in batches against a local MongoDB,
+ * with the same indexes as the application. One op is one batch; multiply
+ * ops/s by batchSize for events/s.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutboxWriteBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int batchSize;
+
+    private SimpleMongoClientDatabaseFactory databaseFactory;
+    private MongoTemplate mongoTemplate;
+    private OutboxEventWriter writer;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        databaseFactory = BenchmarkFixtures.mongoDatabaseFactory();
+        mongoTemplate = new MongoTemplate(databaseFactory);
+        mongoTemplate.dropCollection(OutboxEvent.class);
+        OutboxCollections collections = BenchmarkFixtures.outboxCollections(mongoTemplate);
+        writer = new OutboxEventWriter(mongoTemplate, collections, BenchmarkFixtures.objectMapper(),
+                BenchmarkFixtures.noApplicationEvents(),
+                new OutboxEventClaimService(mongoTemplate, collections, "benchmark"),
+                BenchmarkFixtures.circuitBreaker());
+        new OutboxIndexInitializer(mongoTemplate).createIndexes();
+    }
+
+    @Benchmark
+    public List<OutboxEvent> saveAll() throws JsonProcessingException {
+        List<OutboxEvent> events = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            long id = sequence++;
+            events.add(writer.toOutboxEvent(BenchmarkFixtures.USER_CREATED_TOPIC, "user-" + id,
+                    BenchmarkFixtures.userCreatedEvent(id)));
+        }
+        return writer.saveAll(events);
+    }
+
+    // Keep the collection size comparable between iterations
+    @TearDown(Level.Iteration)
+    public void clearOutbox() {
+        mongoTemplate.remove(new Query(), OutboxEvent.class);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        mongoTemplate.dropCollection(OutboxEvent.class);
+        databaseFactory.destroy();
+    }
+}
@@ -0,0 +1,338 @@
+package com.service.userapi.availability;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import com.service.userapi.model.User;
+import com.service.userapi.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Answers "is this username / email still free?" mostly from memory.
+ *
+ * Bloom filters over all usernames and emails are built by streaming the users
+ * collection, first at startup and then every rebuild-interval-ms. A value the
+ * filter has never seen is definitely free and is answered without a query; only
+ * possible hits (taken values and the configured false-positive rate) go to Mongo.
+ *
+ * This replica adds every user it creates or renames to the filters straight
+ * away, and users created or renamed on other replicas arrive through a change
+ * stream on the users collection. Values cannot be removed, so deleted users are
+ * treated as possible hits until the next rebuild, which costs a query but never
+ * gives a wrong answer.
+ *
+ * The filters are only trusted while that change stream is up and has been open,
+ * without a gap, since before the current filters started building; otherwise a
+ * user from another replica could be missing. Until then (at startup, after a
+ * broken stream that could not be resumed, or without a replica set) every check
+ * goes to Mongo. A name registered elsewhere in the last few milliseconds may still
+ * be reported free; the unique index on registration stays the source of truth.
+ */
+@Component
+public class UserAvailabilityIndex implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserAvailabilityIndex.class);
+
+    // Server error codes meaning the resume token can no longer be used
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final UserRepository userRepository;
+    private final Counter answeredFromMemory;
+    private final Counter answeredFromDatabase;
+
+    @Value("${users.availability.enabled:true}")
+    private boolean enabled;
+
+    // The filters are sized for at least this many users, and twice the current count
+    @Value("${users.availability.expected-users:1000000}")
+    private long expectedUsers;
+
+    @Value("${users.availability.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${users.availability.change-stream.max-await-ms:1000}")
+    private long maxAwaitMs;
+
+    @Value("${users.availability.change-stream.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    // Null until the first build has completed; every check goes to Mongo until then
+    private volatile Filters current;
+    // While a rebuild streams the collection, new users are added to its filters too
+    private volatile Filters building;
+
+    // Whether the change stream is up, and System.nanoTime() when it was opened without a gap since
+    private volatile boolean watching;
+    private volatile long watchingSince;
+
+    private volatile boolean running;
+    private Thread watcherThread;
+    // Only used by the watcher thread; lets a reconnect continue without a gap
+    private BsonDocument resumeToken;
+
+    public UserAvailabilityIndex(MongoTemplate mongoTemplate, UserRepository userRepository, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.userRepository = userRepository;
+        this.answeredFromMemory = Counter.builder("users.availability.checks")
+                .description("Username/email availability checks, by where they were answered")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.answeredFromDatabase = Counter.builder("users.availability.checks")
+                .description("Username/email availability checks, by where they were answered")
+                .tag("source", "database")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        watcherThread = new Thread(this::runWatcher, "users-availability-watcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (watcherThread != null) {
+            watcherThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public boolean isUsernameAvailable(String username) {
+        Filters filters = trustedFilters();
+        if (filters != null && !filters.usernames.mightContain(username)) {
+            answeredFromMemory.increment();
+            return true;
+        }
+        answeredFromDatabase.increment();
+        return !userRepository.existsByUsername(username);
+    }
+
+    public boolean isEmailAvailable(String email) {
+        Filters filters = trustedFilters();
+        if (filters != null && !filters.emails.mightContain(email)) {
+            answeredFromMemory.increment();
+            return true;
+        }
+        answeredFromDatabase.increment();
+        return !userRepository.existsByEmail(email);
+    }
+
+    /**
+     * Records a username and email as taken. Call when a user is created or renamed;
+     * doing so before the transaction commits is fine, a rollback only leaves a false positive.
+     * Either value may be null, e.g. for a rename seen on the change stream.
+     */
+    public void recordUser(String username, String email) {
+        Filters filters = current;
+        if (filters != null) {
+            filters.add(username, email);
+        }
+        Filters next = building;
+        if (next != null) {
+            next.add(username, email);
+        }
+    }
+
+    /**
+     * Builds fresh filters from the users collection and swaps them in. The first
+     * run happens right after startup; later runs also drop deleted users.
+     */
+    @Scheduled(fixedDelayString = "${users.availability.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long capacity = Math.max(expectedUsers, mongoTemplate.estimatedCount(User.class) * 2);
+            Filters next = new Filters(BloomFilter.create(capacity, falsePositiveRate),
+                    BloomFilter.create(capacity, falsePositiveRate), System.nanoTime());
+            building = next;
+
+            Query query = new Query();
+            query.fields().include("username").include("email");
+            long count = 0;
+            try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+                for (User user : (Iterable<User>) users::iterator) {
+                    next.add(user.getUsername(), user.getEmail());
+                    count++;
+                }
+            }
+            current = next;
+            logger.info("Rebuilt user availability filters from {} users ({} bits each).", count, next.usernames.bitCount());
+        } catch (Exception e) {
+            // Keep answering from the previous filters (or from Mongo if there are none)
+            logger.warn("Could not rebuild user availability filters: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    /**
+     * The current filters, if the change stream has fed them every user created
+     * elsewhere since their build started; null otherwise.
+     */
+    private Filters trustedFilters() {
+        Filters filters = current;
+        if (filters == null || !watching || watchingSince - filters.buildStartedAt > 0) {
+            return null;
+        }
+        return filters;
+    }
+
+    /**
+     * Marks the change stream as open. A stream resumed from the last token has no
+     * gap, so filters built since the original open stay trusted.
+     */
+    void onWatchOpened(boolean resumed) {
+        if (!resumed) {
+            watchingSince = System.nanoTime();
+        }
+        watching = true;
+    }
+
+    /**
+     * Adds the username and/or email of a user inserted, replaced or renamed on any replica.
+     */
+    void onChange(ChangeStreamDocument<Document> change) {
+        Document user = change.getFullDocument();
+        if (user != null) {
+            recordUser(user.getString("username"), user.getString("email"));
+            return;
+        }
+        UpdateDescription update = change.getUpdateDescription();
+        if (update != null && update.getUpdatedFields() != null) {
+            BsonDocument fields = update.getUpdatedFields();
+            recordUser(stringOrNull(fields, "username"), stringOrNull(fields, "email"));
+        }
+    }
+
+    /**
+     * Keeps a change stream on the users collection open while the application runs,
+     * reconnecting after any error.
+     */
+    private void runWatcher() {
+        while (running) {
+            try {
+                watchUsers();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || e.getErrorCode() == CHANGE_STREAM_FATAL_ERROR) {
+                    // Cannot continue without a gap; the next stream starts fresh and triggers a rebuild
+                    resumeToken = null;
+                }
+                logger.warn("User availability change stream failed: {}", e.getMessage());
+            } catch (Exception e) {
+                if (running) {
+                    logger.warn("User availability change stream failed: {}", e.getMessage());
+                }
+            } finally {
+                watching = false;
+            }
+            pause(reconnectDelayMs);
+        }
+    }
+
+    private void watchUsers() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(mongoTemplate.getCollectionName(User.class))
+                .watch(List.of(
+                        Aggregates.match(new Document("$or", List.of(
+                                new Document("operationType", new Document("$in", List.of("insert", "replace"))),
+                                new Document("updateDescription.updatedFields.username", new Document("$exists", true)),
+                                new Document("updateDescription.updatedFields.email", new Document("$exists", true))))),
+                        // Only the two fields we need; never ship password hashes around
+                        Aggregates.project(Projections.include("operationType", "ns", "documentKey",
+                                "fullDocument.username", "fullDocument.email",
+                                "updateDescription.updatedFields.username", "updateDescription.updatedFields.email"))))
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+        boolean resumed = resumeToken != null;
+        if (resumed) {
+            stream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            onWatchOpened(resumed);
+            Filters filters = current;
+            if (filters == null || watchingSince - filters.buildStartedAt > 0) {
+                // Filters built before the stream opened may miss users from other replicas
+                rebuild();
+            }
+            logger.info("Watching the users collection for availability ({}).", resumed ? "resumed" : "new stream");
+            while (running) {
+                // tryNext() returns null after maxAwaitTime so we can observe shutdown
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) {
+                    onChange(change);
+                }
+                if (cursor.getResumeToken() != null) {
+                    resumeToken = cursor.getResumeToken();
+                }
+            }
+        }
+    }
+
+    private static String stringOrNull(BsonDocument document, String field) {
+        BsonValue value = document.get(field);
+        return value != null && value.isString() ? value.asString().getValue() : null;
+    }
+
+    private void pause(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class Filters {
+        private final BloomFilter usernames;
+        private final BloomFilter emails;
+        // System.nanoTime() when this build started reading the collection
+        private final long buildStartedAt;
+
+        private Filters(BloomFilter usernames, BloomFilter emails, long buildStartedAt) {
+            this.usernames = usernames;
+            this.emails = emails;
+            this.buildStartedAt = buildStartedAt;
+        }
+
+        private void add(String username, String email) {
+            if (username != null) {
+                usernames.put(username);
+            }
+            if (email != null) {
+                emails.put(email);
+            }
+        }
+    }
+}
@@ -2,10 +2,14 @@ package com.service.userapi.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule; // <-- Import this
+import com.service.userapi.controller.UserController;
+import com.service.userapi.security.BCryptCostCalibrator;
+import com.service.userapi.security.OffloadingPasswordEncoder;
+import com.service.userapi.security.PasswordHashingExecutor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary; // <-- Import this
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -27,9 +31,18 @@ public class AppConfig {
         return objectMapper;
     }
 
+    /**
+     * BCrypt on the bounded hashing pool. Unless password-hashing.strength pins the
+     * cost, it is calibrated at startup to take about target-ms on this hardware.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashingExecutor hashingExecutor,
+                                           @Value("${password-hashing.strength:0}") int strength,
+                                           @Value("${password-hashing.target-ms:250}") long targetMs,
+                                           @Value("${password-hashing.min-strength:10}") int minStrength,
+                                           @Value("${password-hashing.max-strength:14}") int maxStrength) {
+        int cost = strength > 0 ? strength : BCryptCostCalibrator.calibrate(targetMs, minStrength, maxStrength);
+        return new OffloadingPasswordEncoder(cost, hashingExecutor);
     }
 
     @Bean
@@ -40,7 +53,8 @@ public class AppConfig {
                 registry.addMapping("/**")
                         .allowedOrigins("*") // For production, restrict this
                         .allowedMethods("GET", "POST", "PUT", "DELETE", "OPTIONS")
-                        .allowedHeaders("*");
+                        .allowedHeaders("*")
+                        .exposedHeaders(UserController.NEXT_CURSOR_HEADER);
             }
         };
     }
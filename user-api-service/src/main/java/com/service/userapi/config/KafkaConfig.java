@@ -1,32 +1,95 @@
 package com.service.userapi.config;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 @Configuration
 public class KafkaConfig {
 
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${outbox.publisher.transaction-id-prefix:user-api-outbox-}")
+    private String transactionIdPrefix;
+
+    @Value("${outbox.lease.instance-id:${HOSTNAME:}}")
+    private String instanceId;
+
+    // Batch-level compression for outbox records; mostly pays off for bulk operations
+    @Value("${outbox.publisher.compression-type:lz4}")
+    private String outboxCompressionType;
+
     @Bean
+    @Primary
     public ProducerFactory<String, Object> producerFactory() {
-        Map<String, Object> configProps = new HashMap<>();
-        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return new DefaultKafkaProducerFactory<>(producerProps(JsonSerializer.class));
     }
 
     @Bean
+    @Primary
     public KafkaTemplate<String, Object> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
+
+    /**
+     * Producer for the outbox relay. Outbox payloads are already JSON bytes,
+     * so they are sent as-is instead of going through the JsonSerializer again.
+     */
+    @Bean
+    public ProducerFactory<String, byte[]> outboxProducerFactory() {
+        return new DefaultKafkaProducerFactory<>(outboxProducerProps());
+    }
+
+    @Bean
+    public KafkaTemplate<String, byte[]> outboxKafkaTemplate() {
+        return new KafkaTemplate<>(outboxProducerFactory());
+    }
+
+    /**
+     * Transactional producer used by the outbox relay when outbox.publisher.mode=transactional,
+     * so a whole claimed batch becomes visible to read_committed consumers atomically.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "outbox.publisher.mode", havingValue = "transactional")
+    public ProducerFactory<String, byte[]> transactionalProducerFactory() {
+        DefaultKafkaProducerFactory<String, byte[]> factory = new DefaultKafkaProducerFactory<>(outboxProducerProps());
+        // Must be unique per instance, otherwise replicas fence each other's transactions
+        String instance = instanceId == null || instanceId.isBlank() ? UUID.randomUUID().toString() : instanceId;
+        factory.setTransactionIdPrefix(transactionIdPrefix + instance + "-");
+        return factory;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "outbox.publisher.mode", havingValue = "transactional")
+    public KafkaTemplate<String, byte[]> transactionalKafkaTemplate() {
+        return new KafkaTemplate<>(transactionalProducerFactory());
+    }
+
+    private Map<String, Object> outboxProducerProps() {
+        Map<String, Object> configProps = producerProps(ByteArraySerializer.class);
+        configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, outboxCompressionType);
+        return configProps;
+    }
+
+    private Map<String, Object> producerProps(Class<?> valueSerializer) {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer);
+        // Broker-side dedupe of producer retries; requires acks=all
+        configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "all");
+        return configProps;
+    }
 }
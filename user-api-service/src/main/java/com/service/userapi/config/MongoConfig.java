@@ -2,8 +2,14 @@ package com.service.userapi.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
 import org.springframework.data.mongodb.MongoDatabaseFactory;
 import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 @Configuration
 public class MongoConfig {
@@ -12,4 +18,21 @@ public class MongoConfig {
     public MongoTransactionManager transactionManager(MongoDatabaseFactory dbFactory) {
         return new MongoTransactionManager(dbFactory);
     }
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new StringToBytesConverter()));
+    }
+
+    /**
+     * Outbox and dead-letter payloads used to be stored as JSON strings; they are
+     * binary now. This lets documents written before the change still be read.
+     */
+    @ReadingConverter
+    static class StringToBytesConverter implements Converter<String, byte[]> {
+        @Override
+        public byte[] convert(String source) {
+            return source.getBytes(StandardCharsets.UTF_8);
+        }
+    }
 }
\ No newline at end of file
@@ -37,6 +37,7 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/users/health").permitAll()
                         .requestMatchers("/profiles/**").permitAll()// Allow prometheus/monitoring
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
 
                         // All other requests must be authenticated
                         .anyRequest().authenticated()
@@ -2,7 +2,10 @@ package com.service.userapi.controller;
 
 import com.service.userapi.model.UserCreationRequest;
 import com.service.userapi.model.User; // You can keep this if you return the full User object
+import com.service.userapi.outbox.OutboxAdmissionControl;
 import com.service.userapi.payload.AuthResponse;
+import com.service.userapi.payload.BulkRegisterRequest;
+import com.service.userapi.payload.BulkRegisterResponse;
 import com.service.userapi.payload.LoginRequest;
 import com.service.userapi.payload.RegisterRequest;
 import com.service.userapi.payload.RegisterResponse;
@@ -13,6 +16,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -34,6 +38,9 @@ public class AuthController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private OutboxAdmissionControl admissionControl;
+
     @Value("${admin.registration.key}")
     private String adminRegistrationKey;
 
@@ -63,10 +70,12 @@ public class AuthController {
     public ResponseEntity<?> registerUser(@Valid @RequestBody RegisterRequest registerRequest) {
         User user;
         if (adminRegistrationKey.equals(registerRequest.getRegistrationKey())) {
-            // This is an admin registration
+            // This is an admin registration; shed first when the outbox is backed up
+            admissionControl.admit(OutboxAdmissionControl.Priority.LOW);
             user = userService.createAdminUser(registerRequest); // <-- Pass the DTO
         } else {
             // This is a normal user registration
+            admissionControl.admit(OutboxAdmissionControl.Priority.NORMAL);
             user = userService.createUser(registerRequest); // <-- Pass the DTO
         }
 
@@ -77,4 +86,29 @@ public class AuthController {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * Tells a signup form whether a username and/or email is still free, e.g. on
+     * every keystroke. Most checks are answered from memory without a query.
+     */
+    @GetMapping("/availability")
+    public ResponseEntity<Map<String, Boolean>> checkAvailability(
+            @RequestParam(required = false) String username,
+            @RequestParam(required = false) String email) {
+        return ResponseEntity.ok(userService.checkAvailability(username, email));
+    }
+
+    /**
+     * Registers many regular users in one request, e.g. to onboard an enterprise
+     * customer. Admin-only; registrationKey is ignored, so no admins are created.
+     * Every entry gets its own result; invalid or duplicate entries do not fail the rest.
+     */
+    @PostMapping("/register/bulk")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkRegisterResponse> registerUsers(@Valid @RequestBody BulkRegisterRequest bulkRegisterRequest) {
+        // A bulk operation; shed first when the outbox is backed up
+        admissionControl.admit(OutboxAdmissionControl.Priority.LOW);
+        BulkRegisterResponse response = new BulkRegisterResponse(userService.createUsers(bulkRegisterRequest.getUsers()));
+        return ResponseEntity.ok(response);
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.service.userapi.controller;
+
+import com.service.userapi.outbox.deadletter.DeadLetterRedriveJob;
+import com.service.userapi.outbox.deadletter.DeadLetterRedriveService;
+import com.service.userapi.payload.DeadLetterRedriveRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Collection;
+
+/**
+ * Admin API to replay dead-lettered outbox events, e.g. after a Kafka outage.
+ */
+@RestController
+@RequestMapping("/api/admin/dead-letters")
+@PreAuthorize("hasRole('ADMIN')")
+public class DeadLetterAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterAdminController.class);
+
+    private final DeadLetterRedriveService redriveService;
+
+    public DeadLetterAdminController(DeadLetterRedriveService redriveService) {
+        this.redriveService = redriveService;
+    }
+
+    // Starts a background redrive; poll the returned job for progress
+    @PostMapping("/redrive")
+    public ResponseEntity<DeadLetterRedriveJob> startRedrive(@Valid @RequestBody DeadLetterRedriveRequest request) {
+        DeadLetterRedriveJob job = redriveService.startRedrive(request);
+        logger.info("Dead-letter redrive {} requested (topic={}, errorPattern={}).",
+                job.getId(), request.getTopic(), request.getErrorPattern());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/redrive")
+    public ResponseEntity<Collection<DeadLetterRedriveJob>> getRedriveJobs() {
+        return ResponseEntity.ok(redriveService.getJobs());
+    }
+
+    @GetMapping("/redrive/{jobId}")
+    public ResponseEntity<DeadLetterRedriveJob> getRedriveJob(@PathVariable String jobId) {
+        return redriveService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/redrive/{jobId}")
+    public ResponseEntity<DeadLetterRedriveJob> cancelRedriveJob(@PathVariable String jobId) {
+        return redriveService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
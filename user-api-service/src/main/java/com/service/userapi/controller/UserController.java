@@ -1,10 +1,16 @@
 package com.service.userapi.controller;
 import com.service.userapi.model.User;
 import com.service.userapi.model.UserCreationRequest;
+import com.service.userapi.outbox.OutboxAdmissionControl;
 import com.service.userapi.payload.UpdateUserRequest;
+import com.service.userapi.payload.UserPage;
 import com.service.userapi.security.UserPrincipal; // <-- IMPORT UserPrincipal
 import com.service.userapi.service.UserService;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import jakarta.validation.Valid;
@@ -13,6 +19,10 @@ import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -21,8 +31,19 @@ import java.util.Map;
 public class UserController {
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
-    public UserController(UserService userService) {
+    private final OutboxAdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+
+    // Carries the cursor for the next page of GET /api/users; absent on the last page
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    // Users per flush of the NDJSON stream
+    private static final int STREAM_FLUSH_EVERY = 500;
+
+    public UserController(UserService userService, OutboxAdmissionControl admissionControl, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.admissionControl = admissionControl;
+        this.objectMapper = objectMapper;
     }
 
 
@@ -33,11 +54,47 @@ public class UserController {
         return ResponseEntity.ok(user);
     }
 
+    // One page of users; pass the X-Next-Cursor response header back as 'cursor' for the next one
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')") // <-- SECURED this endpoint
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<List<User>> getAllUsers(@RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        UserPage page = userService.getUsers(cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getUsers());
+    }
+
+    /**
+     * All users as newline-delimited JSON, written while the Mongo cursor is read,
+     * so memory use does not grow with the number of users.
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> streamAllUsers() {
+        ObjectWriter writer = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                userService.streamUsers(user -> {
+                    try {
+                        writer.writeValue(generator, user);
+                        generator.writeRaw('\n');
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        // Typically the client went away; stops reading the cursor
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().body(body);
     }
 
     // Search by Username or Email
@@ -59,6 +116,7 @@ public class UserController {
                                            @AuthenticationPrincipal UserPrincipal principal) {
 
         logger.info("User {} is attempting to update user {}", principal.getId(), id);
+        admissionControl.admit(OutboxAdmissionControl.Priority.NORMAL);
         User updatedUser = userService.updateUser(id, updateUserRequest);
         return ResponseEntity.ok(updatedUser);
     }
@@ -97,6 +155,8 @@ public class UserController {
     @DeleteMapping("/admin/delete-all")
     @PreAuthorize("hasRole('ADMIN')") // <-- SECURED this endpoint
     public ResponseEntity<?> deleteAllUsers() {
+        // Never let a bulk delete add to an existing backlog
+        admissionControl.admit(OutboxAdmissionControl.Priority.LOW);
         long deletedCount = userService.deleteAllUsers();
 
         Map<String, Object> response = new HashMap<>();
@@ -0,0 +1,67 @@
+package com.service.userapi.controller;
+
+import com.service.userapi.outbox.reemit.UserReemitJob;
+import com.service.userapi.outbox.reemit.UserReemitService;
+import com.service.userapi.payload.UserReemitRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Admin API to regenerate UserCreatedEvents for all existing users, e.g. to rebuild
+ * the downstream UserProfiles table or to backfill a new consumer.
+ */
+@RestController
+@RequestMapping("/api/admin/reemit")
+@PreAuthorize("hasRole('ADMIN')")
+public class UserReemitAdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReemitAdminController.class);
+
+    private final UserReemitService reemitService;
+
+    public UserReemitAdminController(UserReemitService reemitService) {
+        this.reemitService = reemitService;
+    }
+
+    // Starts a background re-emit; poll the returned job for progress
+    @PostMapping
+    public ResponseEntity<UserReemitJob> startReemit(@Valid @RequestBody UserReemitRequest request) {
+        UserReemitJob job = reemitService.startReemit(request);
+        logger.info("User re-emit {} requested (target={}).", job.getId(), job.getTarget());
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<UserReemitJob>> getReemitJobs() {
+        return ResponseEntity.ok(reemitService.getJobs());
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<UserReemitJob> getReemitJob(@PathVariable String jobId) {
+        return reemitService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Continues a cancelled, failed or abandoned job from its last checkpoint
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<UserReemitJob> resumeReemitJob(@PathVariable String jobId) {
+        return reemitService.resume(jobId)
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<UserReemitJob> cancelReemitJob(@PathVariable String jobId) {
+        return reemitService.cancel(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,235 @@
+package com.service.userapi.leader;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects one replica as the leader for singleton background jobs, using a lease
+ * document in the 'leader_leases' collection.
+ *
+ * Every replica heartbeats: the leader renews its lease, the others try to take
+ * it over once it has expired. A leader that stops cleanly releases the lease so
+ * a standby takes over on its next heartbeat; one that dies is replaced once the
+ * lease expires. Each new holder gets a higher fencing token, which writes that
+ * must not come from a deposed leader (e.g. relay checkpoints) can be guarded with.
+ *
+ * The leader trusts its lease for its duration minus the allowed clock skew,
+ * measured from before the renewal was sent, so it steps down before any other
+ * replica can consider the lease expired.
+ *
+ * With leader election disabled every replica considers itself the leader.
+ */
+@Component
+public class LeaderElection implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderElection.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final boolean enabled;
+    private final String lockName;
+    private final String holderId;
+    private final long leaseMs;
+    private final long heartbeatMs;
+    private final long clockSkewMs;
+
+    private ScheduledExecutorService heartbeatExecutor;
+    private volatile boolean running;
+
+    // System.nanoTime() until which this instance may act as the leader
+    private volatile long leaderUntilNanos;
+    private volatile boolean leader;
+    private volatile long fencingToken;
+
+    public LeaderElection(MongoTemplate mongoTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${leader-election.enabled:true}") boolean enabled,
+                          @Value("${leader-election.lock-name:${spring.application.name:user-api-service}}") String lockName,
+                          @Value("${outbox.lease.instance-id:${HOSTNAME:}}") String instanceId,
+                          @Value("${leader-election.lease-ms:10000}") long leaseMs,
+                          @Value("${leader-election.heartbeat-ms:2000}") long heartbeatMs,
+                          @Value("${leader-election.clock-skew-ms:1000}") long clockSkewMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.enabled = enabled;
+        this.lockName = lockName;
+        // Unique per process, so a restarted instance never mistakes its predecessor's lease for its own
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        this.holderId = instanceId == null || instanceId.isBlank() ? suffix : instanceId + "/" + suffix;
+        this.leaseMs = leaseMs;
+        this.heartbeatMs = heartbeatMs;
+        this.clockSkewMs = clockSkewMs;
+
+        Gauge.builder("leader.election.leader", this, election -> election.isLeader() ? 1 : 0)
+                .description("1 while this instance holds the leader lease")
+                .tag("lock", lockName)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether this instance may currently run leader-only work.
+     */
+    public boolean isLeader() {
+        return !enabled || (leader && leaderUntilNanos - System.nanoTime() > 0);
+    }
+
+    /**
+     * The fencing token of the lease this instance holds; only meaningful while
+     * {@link #isLeader()} is true. Always 0 with leader election disabled.
+     */
+    public long fencingToken() {
+        return fencingToken;
+    }
+
+    /**
+     * How often leadership is re-evaluated; standby loops can wait this long
+     * before checking {@link #isLeader()} again.
+     */
+    public long heartbeatMs() {
+        return heartbeatMs;
+    }
+
+    /**
+     * Checks with MongoDB that this instance still holds the lease. Costs a round
+     * trip, so use it before destructive work rather than on every iteration.
+     */
+    public boolean confirmLeadership() {
+        if (!enabled) {
+            return true;
+        }
+        if (!isLeader()) {
+            return false;
+        }
+        return mongoTemplate.exists(new Query(Criteria.where("_id").is(lockName)
+                .and("holder").is(holderId)
+                .and("fencingToken").is(fencingToken)
+                .and("expiresAt").gt(Instant.now())), LeaderLease.class);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        if (!enabled) {
+            logger.info("Leader election is disabled; every instance runs leader-only jobs.");
+            return;
+        }
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-election");
+            thread.setDaemon(true);
+            return thread;
+        });
+        heartbeatExecutor.scheduleWithFixedDelay(this::heartbeat, 0, heartbeatMs, TimeUnit.MILLISECONDS);
+        logger.info("Leader election for '{}' started as {}.", lockName, holderId);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (heartbeatExecutor == null) {
+            return;
+        }
+        heartbeatExecutor.shutdownNow();
+        if (leader) {
+            release();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Start before, and stop after, the jobs that ask for leadership
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1;
+    }
+
+    void heartbeat() {
+        long startNanos = System.nanoTime();
+        try {
+            Instant now = Instant.now();
+            LeaderLease lease = leader ? renew(now) : null;
+            if (lease == null) {
+                if (leader) {
+                    logger.warn("Lost the leader lease for '{}' (fencing token {}).", lockName, fencingToken);
+                    leader = false;
+                }
+                lease = tryAcquire(now);
+                if (lease != null) {
+                    logger.info("Became leader for '{}' with fencing token {}.", lockName, lease.getFencingToken());
+                }
+            }
+            if (lease != null) {
+                fencingToken = lease.getFencingToken();
+                leaderUntilNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(leaseMs - clockSkewMs);
+                leader = true;
+            }
+        } catch (DataAccessException e) {
+            // Keep whatever validity the last renewal gave us; it runs out on its own
+            logger.warn("Leader election heartbeat for '{}' failed: {}", lockName, e.getMessage());
+        }
+    }
+
+    private LeaderLease renew(Instant now) {
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(lockName)
+                        .and("holder").is(holderId)
+                        .and("fencingToken").is(fencingToken)),
+                new Update()
+                        .set("renewedAt", now)
+                        .set("expiresAt", now.plusMillis(leaseMs)),
+                FindAndModifyOptions.options().returnNew(true),
+                LeaderLease.class);
+    }
+
+    private LeaderLease tryAcquire(Instant now) {
+        try {
+            // Matches only an expired lease; if there is none yet, the upsert creates it
+            return mongoTemplate.findAndModify(
+                    new Query(Criteria.where("_id").is(lockName).and("expiresAt").lt(now)),
+                    new Update()
+                            .set("holder", holderId)
+                            .set("acquiredAt", now)
+                            .set("renewedAt", now)
+                            .set("expiresAt", now.plusMillis(leaseMs))
+                            .inc("fencingToken", 1),
+                    FindAndModifyOptions.options().upsert(true).returnNew(true),
+                    LeaderLease.class);
+        } catch (DuplicateKeyException e) {
+            // The lease exists and is held by someone else
+            return null;
+        }
+    }
+
+    private void release() {
+        leader = false;
+        try {
+            mongoTemplate.updateFirst(
+                    new Query(Criteria.where("_id").is(lockName)
+                            .and("holder").is(holderId)
+                            .and("fencingToken").is(fencingToken)),
+                    new Update().set("expiresAt", Instant.EPOCH),
+                    LeaderLease.class);
+            logger.info("Released the leader lease for '{}'.", lockName);
+        } catch (DataAccessException e) {
+            logger.warn("Could not release the leader lease for '{}'; it expires in {} ms.", lockName, leaseMs);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.service.userapi.leader;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * The lease document in the 'leader_leases' collection. Whoever holds an unexpired
+ * lease is the leader; every new holder gets the next fencing token.
+ */
+@Document(collection = "leader_leases")
+public class LeaderLease {
+
+    // The name of the lock, e.g. 'user-api-service'
+    @Id
+    private String id;
+
+    private String holder;
+
+    /**
+     * Incremented on every change of holder, so writes made by a deposed leader
+     * can be told apart from (and rejected in favour of) the current one's.
+     */
+    private long fencingToken;
+
+    private Instant acquiredAt;
+    private Instant renewedAt;
+    private Instant expiresAt;
+
+    public LeaderLease() {
+    }
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getHolder() {
+        return holder;
+    }
+
+    public void setHolder(String holder) {
+        this.holder = holder;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public Instant getAcquiredAt() {
+        return acquiredAt;
+    }
+
+    public void setAcquiredAt(Instant acquiredAt) {
+        this.acquiredAt = acquiredAt;
+    }
+
+    public Instant getRenewedAt() {
+        return renewedAt;
+    }
+
+    public void setRenewedAt(Instant renewedAt) {
+        this.renewedAt = renewedAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
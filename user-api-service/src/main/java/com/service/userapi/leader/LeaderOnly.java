@@ -0,0 +1,18 @@
+package com.service.userapi.leader;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a background job (typically a void {@code @Scheduled} method) that must only
+ * run on the elected leader. On every other replica the call is skipped.
+ * See LeaderElection and LeaderOnlyAspect.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface LeaderOnly {
+}
@@ -0,0 +1,33 @@
+package com.service.userapi.leader;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Skips {@link LeaderOnly} methods on replicas that do not currently hold the leader lease.
+ */
+@Aspect
+@Component
+public class LeaderOnlyAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeaderOnlyAspect.class);
+
+    private final LeaderElection leaderElection;
+
+    public LeaderOnlyAspect(LeaderElection leaderElection) {
+        this.leaderElection = leaderElection;
+    }
+
+    @Around("@annotation(com.service.userapi.leader.LeaderOnly)")
+    public Object runOnLeader(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!leaderElection.isLeader()) {
+            logger.trace("Skipping {}: this instance is not the leader.", joinPoint.getSignature().toShortString());
+            return null;
+        }
+        return joinPoint.proceed();
+    }
+}
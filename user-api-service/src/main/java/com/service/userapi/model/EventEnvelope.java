@@ -0,0 +1,44 @@
+package com.service.userapi.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Packs many events of one type into a single outbox document and Kafka record,
+ * for bulk operations such as deleting all users. Consumers recognise an envelope
+ * by its 'events' array and handle each element as if it had arrived on its own.
+ */
+public class EventEnvelope {
+
+    private String envelopeId;
+    private String eventType;
+    private int count;
+    private List<Object> events;
+    private Instant timestamp;
+
+    public EventEnvelope() {}
+
+    public EventEnvelope(String envelopeId, String eventType, List<Object> events) {
+        this.envelopeId = envelopeId;
+        this.eventType = eventType;
+        this.count = events.size();
+        this.events = events;
+        this.timestamp = Instant.now();
+    }
+
+    // Getters and Setters
+    public String getEnvelopeId() { return envelopeId; }
+    public void setEnvelopeId(String envelopeId) { this.envelopeId = envelopeId; }
+
+    public String getEventType() { return eventType; }
+    public void setEventType(String eventType) { this.eventType = eventType; }
+
+    public int getCount() { return count; }
+    public void setCount(int count) { this.count = count; }
+
+    public List<Object> getEvents() { return events; }
+    public void setEvents(List<Object> events) { this.events = events; }
+
+    public Instant getTimestamp() { return timestamp; }
+    public void setTimestamp(Instant timestamp) { this.timestamp = timestamp; }
+}
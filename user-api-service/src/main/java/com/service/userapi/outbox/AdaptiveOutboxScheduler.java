@@ -0,0 +1,93 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.leader.LeaderElection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Drives the OutboxEventPoller with an adaptive delay instead of a fixed one.
+ * While full batches keep coming back it polls again immediately with growing
+ * batches, so a large backlog (e.g. after deleteAllUsers()) drains as fast as
+ * Kafka allows; when the outbox is empty it backs off exponentially, so an idle
+ * cluster puts almost no load on MongoDB. See AdaptivePollingState.
+ *
+ * Only polls on the elected leader (see LeaderElection); standby replicas check
+ * again after every heartbeat, so a new leader starts draining right away.
+ *
+ * Disabled when the OutboxDispatcher is enabled, whose lanes keep per-key order.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.dispatcher.enabled", havingValue = "false", matchIfMissing = true)
+public class AdaptiveOutboxScheduler implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveOutboxScheduler.class);
+
+    private final OutboxEventPoller poller;
+    private final LeaderElection leaderElection;
+    private final TaskScheduler taskScheduler;
+    private final AdaptivePollingState state;
+
+    private volatile boolean running;
+
+    public AdaptiveOutboxScheduler(OutboxEventPoller poller,
+                                   LeaderElection leaderElection,
+                                   TaskScheduler taskScheduler,
+                                   @Value("${outbox.poller.min-batch-size:10}") int minBatchSize,
+                                   @Value("${outbox.poller.max-batch-size:500}") int maxBatchSize,
+                                   @Value("${outbox.poller.base-delay-ms:1000}") long baseDelayMs,
+                                   @Value("${outbox.poller.max-idle-delay-ms:10000}") long maxIdleDelayMs) {
+        this.poller = poller;
+        this.leaderElection = leaderElection;
+        this.taskScheduler = taskScheduler;
+        this.state = new AdaptivePollingState(minBatchSize, maxBatchSize, baseDelayMs, maxIdleDelayMs);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        scheduleNextPoll(0);
+        logger.info("Adaptive outbox scheduler started.");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void pollOnce() {
+        if (!running) {
+            return;
+        }
+        if (!leaderElection.isLeader()) {
+            scheduleNextPoll(leaderElection.heartbeatMs());
+            return;
+        }
+        try {
+            int fetched = poller.pollAndPublishEvents(state.batchSize());
+            state.onPollCompleted(fetched);
+        } catch (Exception e) {
+            logger.error("Outbox poll failed.", e);
+            state.onPollFailed();
+        }
+        scheduleNextPoll(state.nextDelayMs());
+    }
+
+    private void scheduleNextPoll(long delayMs) {
+        if (running) {
+            logger.trace("Next outbox poll in {} ms with batch size {}.", delayMs, state.batchSize());
+            taskScheduler.schedule(this::pollOnce, Instant.now().plusMillis(delayMs));
+        }
+    }
+}
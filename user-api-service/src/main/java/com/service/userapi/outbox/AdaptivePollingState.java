@@ -0,0 +1,69 @@
+package com.service.userapi.outbox;
+
+/**
+ * Decides how much to fetch and how long to wait between outbox polls,
+ * based on how full the previous poll was:
+ * - a full batch means there is a backlog, so poll again immediately
+ *   and double the batch size (up to the maximum);
+ * - a partial batch means we have caught up, so wait the base delay;
+ * - an empty poll doubles the delay (up to the maximum idle delay)
+ *   and shrinks the batch back to the minimum.
+ *
+ * Not thread-safe; each polling loop owns its own instance.
+ */
+public class AdaptivePollingState {
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long baseDelayMs;
+    private final long maxIdleDelayMs;
+
+    private int batchSize;
+    private long nextDelayMs;
+
+    public AdaptivePollingState(int minBatchSize, int maxBatchSize, long baseDelayMs, long maxIdleDelayMs) {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize) {
+            throw new IllegalArgumentException("Batch sizes must satisfy 1 <= min <= max");
+        }
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.baseDelayMs = baseDelayMs;
+        this.maxIdleDelayMs = Math.max(baseDelayMs, maxIdleDelayMs);
+        this.batchSize = minBatchSize;
+        this.nextDelayMs = baseDelayMs;
+    }
+
+    /**
+     * Records the outcome of a poll that asked for {@link #batchSize()} events.
+     *
+     * @param fetched How many events the poll returned.
+     */
+    public void onPollCompleted(int fetched) {
+        if (fetched >= batchSize) {
+            // Backlog: drain as fast as the broker allows
+            batchSize = (int) Math.min((long) batchSize * 2, maxBatchSize);
+            nextDelayMs = 0;
+        } else if (fetched > 0) {
+            nextDelayMs = baseDelayMs;
+        } else {
+            // Idle: back off exponentially
+            batchSize = minBatchSize;
+            nextDelayMs = nextDelayMs == 0 ? baseDelayMs : Math.min(nextDelayMs * 2, maxIdleDelayMs);
+        }
+    }
+
+    /**
+     * Records a failed poll (e.g. MongoDB unavailable); treated like an idle poll.
+     */
+    public void onPollFailed() {
+        onPollCompleted(0);
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public long nextDelayMs() {
+        return nextDelayMs;
+    }
+}
@@ -3,12 +3,25 @@ package com.service.userapi.outbox;
 import com.service.userapi.service.KafkaProducerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.kafka.core.KafkaTemplate;
-import com.service.userapi.outbox.deadletter.DeadLetterEvent;
-import com.service.userapi.outbox.deadletter.DeadLetterEventRepository;
+import com.service.userapi.outbox.deadletter.DeadLetterService;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class EventProcessingService {
@@ -16,59 +29,224 @@ public class EventProcessingService {
     private static final Logger logger = LoggerFactory.getLogger(EventProcessingService.class);
 
     private final KafkaProducerService kafkaProducerService;
-    private final OutboxEventRepository outboxRepository;
-    private final DeadLetterEventRepository deadLetterRepository;
+    private final OutboxCollections collections;
+    private final DeadLetterService deadLetterService;
+    private final OutboxEventCoalescer coalescer;
+    private final MongoTemplate mongoTemplate;
+    private final OutboxMetrics metrics;
+    private final OutboxRetryPolicy retryPolicy;
+
+    // How long a batch waits for broker acknowledgements before giving up on the stragglers
+    @Value("${outbox.publish.ack-timeout-ms:10000}")
+    private long ackTimeoutMs;
+
+    // 'delete' removes published events; 'ttl' marks them PUBLISHED and lets a TTL index expire them
+    @Value("${outbox.cleanup.mode:delete}")
+    private String cleanupMode;
 
     public EventProcessingService(KafkaProducerService kafkaProducerService,
-                                  OutboxEventRepository outboxRepository,
-                                  DeadLetterEventRepository deadLetterRepository) {
+                                  OutboxCollections collections,
+                                  DeadLetterService deadLetterService,
+                                  OutboxEventCoalescer coalescer,
+                                  MongoTemplate mongoTemplate,
+                                  OutboxMetrics metrics,
+                                  OutboxRetryPolicy retryPolicy) {
         this.kafkaProducerService = kafkaProducerService;
-        this.outboxRepository = outboxRepository;
-        this.deadLetterRepository = deadLetterRepository;
+        this.collections = collections;
+        this.deadLetterService = deadLetterService;
+        this.coalescer = coalescer;
+        this.mongoTemplate = mongoTemplate;
+        this.metrics = metrics;
+        this.retryPolicy = retryPolicy;
     }
 
     /**
-     * Handles the "happy path" in a single transaction.
-     * If KafkaProducerService.publish() throws an exception, this transaction
-     * will roll back, and the event will NOT be deleted from the outbox.
-     * The poller will then catch the exception.
+     * Publishes a whole batch of claimed events as one pipeline:
+     * 0. events superseded by a later event for the same key are dropped (if coalescing is enabled),
+     * 1. every event is sent to Kafka without waiting in between (in one Kafka transaction
+     *    when outbox.publisher.mode=transactional),
+     * 2. all broker acknowledgements are awaited together,
+     * 3. the acknowledged events are removed (or marked PUBLISHED) with a single bulk write
+     *    per collection,
+     * 4. failed events are scheduled for another attempt with backoff (see OutboxRetryPolicy),
+     *    and moved to the dead-letter queue once their retry budget is spent.
+     *
+     * Events are only deleted once the broker has acked them. Events whose
+     * acknowledgement does not arrive in time keep their lease and are
+     * retried when it expires.
+     *
+     * @param claimed The claimed events, in publish order.
+     * @return The number of events acknowledged and removed from the outbox.
      */
-    @Transactional(propagation = Propagation.REQUIRED)
-    public void processAndPublishEvent(OutboxEvent event) {
-        logger.info("Processing event: {}", event.getId());
-
-        // 1. Publish to Kafka (this is synchronous and will throw on failure)
-        kafkaProducerService.publish(
-                event.getTopic(),
-                event.getKey(),
-                event.getPayload()
-        );
-
-        // 2. Delete from outbox ONLY if publish was successful
-        outboxRepository.delete(event);
-        logger.info("Successfully processed and deleted event: {}", event.getId());
+    public int publishBatch(List<OutboxEvent> claimed) {
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+
+        // 0. Collapse redundant events; the latest state for each key is still published
+        OutboxEventCoalescer.Result coalesced = coalescer.coalesce(claimed);
+        List<OutboxEvent> events = coalesced.getToPublish();
+
+        // 1. Send everything; the producer batches the records on the wire
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = kafkaProducerService.isTransactional()
+                ? sendInTransaction(events)
+                : send(events);
+
+        // 2. Wait for all acknowledgements at once
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]))
+                    .get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Individual outcomes are inspected below
+            logger.debug("Not every event in the batch was acknowledged: {}", e.getMessage());
+        }
+
+        Instant acknowledgedAt = Instant.now();
+        List<OutboxEvent> acknowledged = new ArrayList<>(claimed.size());
+        acknowledged.addAll(coalesced.getSuperseded());
+        List<OutboxEvent> retries = new ArrayList<>();
+        for (int i = 0; i < events.size(); i++) {
+            OutboxEvent event = events.get(i);
+            CompletableFuture<SendResult<String, byte[]>> future = futures.get(i);
+
+            if (!future.isDone()) {
+                logger.warn("No broker acknowledgement for event {} yet. It will be retried.", event.getId());
+            } else if (future.isCompletedExceptionally()) {
+                // 4. Retry with backoff; dead-letter only once the budget is spent
+                String error = failureMessage(future);
+                int attempts = event.getAttempts() + 1;
+                if (retryPolicy.isExhausted(attempts)) {
+                    logger.error("Failed to publish event {} after {} attempts: {}", event.getId(), attempts, error);
+                    deadLetterService.moveToDeadLetterQueue(event, error);
+                    metrics.recordDeadLettered(event.getTopic());
+                } else {
+                    event.setAttempts(attempts);
+                    event.setNextAttemptAt(acknowledgedAt.plus(retryPolicy.backoff(attempts)));
+                    event.setLastError(error);
+                    logger.warn("Failed to publish event {} (attempt {}): {}. Retrying at {}.",
+                            event.getId(), attempts, error, event.getNextAttemptAt());
+                    retries.add(event);
+                    metrics.recordRetryScheduled(event.getTopic());
+                }
+            } else {
+                acknowledged.add(event);
+                metrics.recordPublished(event.getTimestamp(), acknowledgedAt);
+            }
+        }
+
+        // 3. One round-trip for the whole acknowledged batch
+        if (!acknowledged.isEmpty()) {
+            acknowledge(acknowledged);
+        }
+        if (!retries.isEmpty()) {
+            scheduleRetries(retries);
+        }
+        logger.info("Acknowledged {} of {} outbox events ({} coalesced).",
+                acknowledged.size(), claimed.size(), coalesced.getSuperseded().size());
+        return acknowledged.size();
+    }
+
+    private List<CompletableFuture<SendResult<String, byte[]>>> send(List<OutboxEvent> events) {
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            futures.add(kafkaProducerService.publish(event));
+        }
+        return futures;
     }
 
     /**
-     * Handles the "sad path" in its OWN NEW transaction.
-     * This ensures that even if the main processing fails,
-     * the dead-lettering is an atomic operation.
+     * Publishes the batch as one Kafka transaction. If it aborts, none of it is visible,
+     * so each event is retried in its own transaction to isolate the one that failed;
+     * only events whose own transaction fails end up dead-lettered.
      */
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void moveToDeadLetterQueue(OutboxEvent event, String errorMessage) {
-        // 1. Create a dead-letter record
-        DeadLetterEvent dlEvent = new DeadLetterEvent(
-                event.getId(), // Assuming you add this field to OutboxEvent
-                event.getTopic(),
-                event.getKey(),
-                event.getPayload(),
-                errorMessage
-        );
-        deadLetterRepository.save(dlEvent);
-
-        // 2. Remove the poison pill from the main outbox
-        outboxRepository.delete(event);
-
-        logger.info("Successfully moved poison pill event {} to dead-letter table.", event.getId());
+    private List<CompletableFuture<SendResult<String, byte[]>>> sendInTransaction(List<OutboxEvent> events) {
+        try {
+            return kafkaProducerService.publishInTransaction(events);
+        } catch (Exception e) {
+            if (events.size() == 1) {
+                return List.of(CompletableFuture.failedFuture(e));
+            }
+            logger.warn("Outbox transaction for {} events aborted ({}). Retrying events individually.",
+                    events.size(), e.getMessage());
+        }
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                futures.addAll(kafkaProducerService.publishInTransaction(List.of(event)));
+            } catch (Exception e) {
+                futures.add(CompletableFuture.failedFuture(e));
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Removes published events from the outbox, or marks them PUBLISHED depending on
+     * the cleanup and storage modes. Also used by the OutboxFastPathPublisher.
+     */
+    void acknowledge(List<OutboxEvent> events) {
+        // One bulk write per collection (more than one only across bucket boundaries)
+        Map<String, List<String>> idsByCollection = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            idsByCollection.computeIfAbsent(collections.of(event), name -> new ArrayList<>()).add(event.getId());
+        }
+        idsByCollection.forEach(this::acknowledge);
+    }
+
+    private void acknowledge(String collection, List<String> ids) {
+        Query byIds = new Query(Criteria.where("_id").in(ids));
+        if ("ttl".equalsIgnoreCase(cleanupMode)) {
+            // No delete on the hot path; the TTL index on publishedAt cleans up later
+            mongoTemplate.updateMulti(
+                    byIds,
+                    new Update()
+                            .set("status", OutboxEvent.EventStatus.PUBLISHED)
+                            .set("publishedAt", Instant.now()),
+                    collection);
+        } else if (collections.isBucketed()) {
+            // Dropping the drained bucket cleans up later. The status flip has to stay per
+            // event: lanes, retries and the fast path publish a bucket out of timestamp
+            // order, so no per-bucket high-water mark could tell which events are done
+            mongoTemplate.updateMulti(byIds, new Update().set("status", OutboxEvent.EventStatus.PUBLISHED), collection);
+        } else {
+            mongoTemplate.remove(byIds, collection);
+        }
+    }
+
+    /**
+     * Records the failed attempt and releases the lease, so the event is claimed
+     * again once its nextAttemptAt has passed.
+     */
+    private void scheduleRetries(List<OutboxEvent> events) {
+        Map<String, List<OutboxEvent>> byCollection = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            byCollection.computeIfAbsent(collections.of(event), name -> new ArrayList<>()).add(event);
+        }
+        byCollection.forEach((collection, retries) -> {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxEvent.class, collection);
+            for (OutboxEvent event : retries) {
+                bulk.updateOne(
+                        new Query(Criteria.where("_id").is(event.getId())),
+                        new Update()
+                                .set("attempts", event.getAttempts())
+                                .set("nextAttemptAt", event.getNextAttemptAt())
+                                .set("lastError", event.getLastError())
+                                .unset("lockedBy")
+                                .unset("lockedUntil"));
+            }
+            bulk.execute();
+        });
+    }
+
+    private String failureMessage(CompletableFuture<?> future) {
+        try {
+            future.join();
+            return null;
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            return cause.getMessage();
+        }
     }
-}
\ No newline at end of file
+}
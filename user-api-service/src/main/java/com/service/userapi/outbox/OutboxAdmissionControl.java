@@ -0,0 +1,118 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Admission control for endpoints that write outbox events.
+ *
+ * When the relay cannot keep up (e.g. Kafka is down) the outbox keeps growing and
+ * recovery takes longer the bigger it gets. This checks the cached outbox depth and
+ * oldest-event age from OutboxMetrics, so it costs nothing per request:
+ * - below the soft limits, everything is admitted,
+ * - between the soft and hard limits, low-priority writes (admin and bulk operations)
+ *   are rejected and normal writes are slowed down in proportion to the backlog,
+ * - above either hard limit, every write is rejected with 503 and Retry-After.
+ */
+@Component
+public class OutboxAdmissionControl {
+
+    public enum Priority {
+        NORMAL,
+        LOW
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxAdmissionControl.class);
+
+    private final OutboxMetrics metrics;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${outbox.admission.soft-depth:5000}")
+    private long softDepth;
+
+    @Value("${outbox.admission.hard-depth:50000}")
+    private long hardDepth;
+
+    @Value("${outbox.admission.soft-age-ms:30000}")
+    private long softAgeMs;
+
+    @Value("${outbox.admission.hard-age-ms:300000}")
+    private long hardAgeMs;
+
+    // Added to normal-priority writes at the hard limit; scaled down linearly towards the soft limit
+    @Value("${outbox.admission.max-delay-ms:500}")
+    private long maxDelayMs;
+
+    @Value("${outbox.admission.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    public OutboxAdmissionControl(OutboxMetrics metrics, MeterRegistry meterRegistry) {
+        this.metrics = metrics;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Admits a write, possibly after a short delay, or throws.
+     *
+     * @throws ServiceUnavailableException if the outbox backlog is too large for this priority.
+     */
+    public void admit(Priority priority) {
+        if (!enabled) {
+            return;
+        }
+        double pressure = pressure(metrics.getPendingCount(), metrics.getOldestPendingAge());
+        if (pressure <= 0) {
+            return;
+        }
+        if (pressure >= 1 || priority == Priority.LOW) {
+            reject(priority);
+        }
+        long delayMs = (long) (maxDelayMs * pressure);
+        if (delayMs > 0) {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * How far the backlog is between the soft limits (0) and the hard limits (1),
+     * taking whichever of depth and age is worse. Negative below the soft limits.
+     */
+    double pressure(long depth, Duration oldestAge) {
+        double depthPressure = scale(depth, softDepth, hardDepth);
+        double agePressure = scale(oldestAge.toMillis(), softAgeMs, hardAgeMs);
+        return Math.max(depthPressure, agePressure);
+    }
+
+    private static double scale(long value, long soft, long hard) {
+        if (value < soft) {
+            return -1;
+        }
+        return hard > soft ? Math.min(1.0, (double) (value - soft) / (hard - soft)) : 1.0;
+    }
+
+    private void reject(Priority priority) {
+        Counter.builder("outbox.admission.rejected")
+                .description("Writes rejected because the outbox backlog is too large")
+                .tag("priority", priority.name().toLowerCase())
+                .register(meterRegistry)
+                .increment();
+        logger.warn("Rejecting {} priority write: outbox backlog is {} events, oldest {}s.",
+                priority, metrics.getPendingCount(), metrics.getOldestPendingAge().toSeconds());
+        throw new ServiceUnavailableException(
+                "Event backlog is too large, please retry later.", retryAfterSeconds);
+    }
+}
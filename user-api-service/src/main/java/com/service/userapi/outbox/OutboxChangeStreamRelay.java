@@ -0,0 +1,239 @@
+package com.service.userapi.outbox;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.service.userapi.leader.LeaderElection;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Tails inserts on the outbox collection(s) with a MongoDB change stream
+ * and publishes each event as soon as it is committed. The stream is opened on
+ * the database, so it also follows the bucket collections of bucketed storage.
+ *
+ * The resume token of the last handled event is persisted, so a restart picks up
+ * where the relay stopped. Anything the stream misses (e.g. while the relay is
+ * reconnecting, or after the oplog has rolled past the saved token) is still
+ * picked up by the OutboxEventPoller, which runs as a slow sweeper in this mode.
+ *
+ * Only the elected leader tails the stream (see LeaderElection). Checkpoints carry
+ * the leader's fencing token, so a deposed leader cannot move the checkpoint back
+ * once its successor has advanced it.
+ *
+ * Requires MongoDB to run as a replica set (rs0 in docker-compose).
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.change-stream.enabled", havingValue = "true")
+public class OutboxChangeStreamRelay implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxChangeStreamRelay.class);
+
+    private static final String CHECKPOINT_ID = "outbox-change-stream";
+
+    // Server error codes meaning the saved resume token can no longer be used
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final EventProcessingService eventProcessingService;
+    private final OutboxRelayCheckpointRepository checkpointRepository;
+    private final OutboxEventClaimService claimService;
+    private final OutboxCollections collections;
+    private final LeaderElection leaderElection;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final String relayId;
+
+    @Value("${outbox.relay.change-stream.max-await-ms:1000}")
+    private long maxAwaitMs;
+
+    @Value("${outbox.relay.change-stream.reconnect-delay-ms:2000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread relayThread;
+
+    public OutboxChangeStreamRelay(MongoTemplate mongoTemplate,
+                                   EventProcessingService eventProcessingService,
+                                   OutboxRelayCheckpointRepository checkpointRepository,
+                                   OutboxEventClaimService claimService,
+                                   OutboxCollections collections,
+                                   LeaderElection leaderElection,
+                                   KafkaCircuitBreaker circuitBreaker) {
+        this.mongoTemplate = mongoTemplate;
+        this.eventProcessingService = eventProcessingService;
+        this.checkpointRepository = checkpointRepository;
+        this.claimService = claimService;
+        this.collections = collections;
+        this.leaderElection = leaderElection;
+        this.circuitBreaker = circuitBreaker;
+        this.relayId = claimService.ownerId("change-stream");
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relayThread = new Thread(this::runRelay, "outbox-change-stream-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+        logger.info("Outbox change-stream relay started.");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+        }
+        logger.info("Outbox change-stream relay stopped.");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Keeps a change stream open for as long as the application runs and is the
+     * leader, reconnecting after any error.
+     */
+    private void runRelay() {
+        while (running) {
+            if (!leaderElection.isLeader()) {
+                pause(leaderElection.heartbeatMs());
+                continue;
+            }
+            try {
+                if (!tailOutbox()) {
+                    // A newer leader owns the checkpoint, but our lease may not have lapsed yet.
+                    // Wait for the next heartbeat to step us down instead of reopening at once.
+                    pause(leaderElection.heartbeatMs());
+                }
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || e.getErrorCode() == CHANGE_STREAM_FATAL_ERROR) {
+                    // The oplog no longer holds our position. Start from "now";
+                    // the sweeper publishes whatever was inserted in between.
+                    logger.warn("Outbox resume token is no longer valid, restarting the change stream from now.", e);
+                    checkpointRepository.deleteById(CHECKPOINT_ID);
+                } else {
+                    logger.error("Outbox change stream failed. Reconnecting in {} ms.", reconnectDelayMs, e);
+                    pause(reconnectDelayMs);
+                }
+            } catch (Exception e) {
+                if (running) {
+                    logger.error("Outbox change stream failed. Reconnecting in {} ms.", reconnectDelayMs, e);
+                    pause(reconnectDelayMs);
+                }
+            }
+        }
+    }
+
+    /**
+     * Relays inserts from a change stream until shutdown or lost leadership.
+     *
+     * @return false if a newer leader owns the checkpoint.
+     */
+    private boolean tailOutbox() {
+        // The outbox collection itself, plus its time buckets ('outbox_events_<bucket>')
+        String collectionName = mongoTemplate.getCollectionName(OutboxEvent.class);
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.and(
+                        Filters.eq("operationType", "insert"),
+                        Filters.regex("ns.coll", "^" + Pattern.quote(collectionName) + "(_|$)")))))
+                .maxAwaitTime(maxAwaitMs, TimeUnit.MILLISECONDS);
+
+        checkpointRepository.findById(CHECKPOINT_ID).ifPresent(checkpoint -> {
+            logger.info("Resuming outbox change stream from checkpoint saved at {}", checkpoint.getUpdatedAt());
+            stream.resumeAfter(new BsonDocument("_data", new BsonString(checkpoint.getResumeToken())));
+        });
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            while (running && leaderElection.isLeader()) {
+                // tryNext() returns null after maxAwaitTime so we can observe shutdown and lost leadership
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change == null) {
+                    continue;
+                }
+                if (!relay(change)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Publishes a single inserted outbox event and advances the checkpoint. The
+     * event is only published under a lease of its own: a deposed leader still
+     * draining its cursor, the dispatcher and the fast path may all see it too.
+     *
+     * @return false if a newer leader owns the checkpoint and this relay should stop.
+     */
+    boolean relay(ChangeStreamDocument<Document> change) {
+        Document document = change.getFullDocument();
+        // While the Kafka circuit is open, or once leadership is lost, the event is left to the sweeper
+        boolean permitted = document != null && leaderElection.isLeader() && circuitBreaker.permittedBatchSize(1) > 0;
+        // Only the worker that wins the lease publishes it; a lost claim is simply skipped
+        OutboxEvent event = !permitted ? null : claimService.claimById(relayId,
+                String.valueOf(document.get("_id")), change.getNamespace().getCollectionName());
+        if (event != null) {
+            eventProcessingService.publishBatch(List.of(event));
+            logger.debug("Relayed outbox event {} from change stream.", event.getId());
+        }
+
+        BsonDocument resumeToken = change.getResumeToken();
+        return resumeToken == null || saveCheckpoint(resumeToken.getString("_data").getValue());
+    }
+
+    /**
+     * Advances the checkpoint unless it was last written by a newer leader.
+     */
+    private boolean saveCheckpoint(String resumeToken) {
+        long fencingToken = leaderElection.fencingToken();
+        try {
+            // Matches our own or an older leader's checkpoint; if a newer one exists the upsert collides on _id
+            mongoTemplate.upsert(
+                    new Query(Criteria.where("_id").is(CHECKPOINT_ID)
+                            .orOperator(Criteria.where("fencingToken").lte(fencingToken),
+                                    Criteria.where("fencingToken").exists(false))),
+                    new Update()
+                            .set("resumeToken", resumeToken)
+                            .set("fencingToken", fencingToken)
+                            .set("updatedAt", Instant.now()),
+                    OutboxRelayCheckpoint.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            logger.warn("Outbox relay checkpoint is owned by a newer leader (our fencing token: {}); stopping.", fencingToken);
+            return false;
+        }
+    }
+
+    private void pause(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
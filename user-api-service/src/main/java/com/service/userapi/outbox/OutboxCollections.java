@@ -0,0 +1,205 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.leader.LeaderElection;
+import com.service.userapi.leader.LeaderOnly;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Decides which collection(s) hold the outbox.
+ *
+ * In the default 'single' storage mode everything lives in 'outbox_events'.
+ * In 'bucketed' mode each event is written to a collection for its time bucket
+ * (e.g. 'outbox_events_20250101_1300' for one hour). The relay reads buckets
+ * oldest first, published events are only marked PUBLISHED, and once a past bucket
+ * has no pending events left the whole collection is dropped in one operation,
+ * instead of deleting every event document individually. Only the elected leader
+ * drops buckets.
+ */
+@Component
+public class OutboxCollections {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxCollections.class);
+
+    private static final DateTimeFormatter BUCKET_FORMAT =
+            DateTimeFormatter.ofPattern("yyyyMMdd_HHmm").withZone(ZoneOffset.UTC);
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderElection leaderElection;
+    private final String baseCollection;
+    private final boolean bucketed;
+    private final Duration bucketDuration;
+
+    // A past bucket is only dropped once no transaction can still be writing into it
+    @Value("${outbox.storage.drop-grace-ms:300000}")
+    private long dropGraceMs;
+
+    // Known bucket collections, in chronological (= lexicographic) order
+    private final Set<String> buckets = new ConcurrentSkipListSet<>();
+
+    public OutboxCollections(MongoTemplate mongoTemplate,
+                             LeaderElection leaderElection,
+                             @Value("${outbox.storage.mode:single}") String storageMode,
+                             @Value("${outbox.storage.bucket-minutes:60}") long bucketMinutes) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaderElection = leaderElection;
+        this.baseCollection = mongoTemplate.getCollectionName(OutboxEvent.class);
+        this.bucketed = "bucketed".equalsIgnoreCase(storageMode);
+        this.bucketDuration = Duration.ofMinutes(bucketMinutes);
+    }
+
+    public boolean isBucketed() {
+        return bucketed;
+    }
+
+    /**
+     * The collection new events written at the given time go to.
+     */
+    public String forWrite(Instant timestamp) {
+        if (!bucketed) {
+            return baseCollection;
+        }
+        String bucket = bucketName(timestamp);
+        if (!buckets.contains(bucket)) {
+            createBucket(bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * Every collection that may hold pending events, oldest first. In bucketed mode the
+     * base collection comes first so events written before switching modes still drain.
+     */
+    public List<String> forRead() {
+        List<String> collections = new ArrayList<>(buckets.size() + 1);
+        collections.add(baseCollection);
+        if (bucketed) {
+            collections.addAll(buckets);
+        }
+        return collections;
+    }
+
+    /**
+     * The collection a claimed event was read from.
+     */
+    public String of(OutboxEvent event) {
+        return event.getCollectionName() != null ? event.getCollectionName() : baseCollection;
+    }
+
+    /**
+     * Picks up buckets created by other instances and creates the current and the
+     * next bucket ahead of time, so inserts inside business transactions never have
+     * to create a collection.
+     */
+    @Scheduled(fixedDelayString = "${outbox.storage.maintenance-interval-ms:60000}")
+    public void maintainBuckets() {
+        if (!bucketed) {
+            return;
+        }
+        try {
+            Set<String> existing = existingBuckets();
+            buckets.retainAll(existing);
+            buckets.addAll(existing);
+            Instant now = Instant.now();
+            forWrite(now);
+            forWrite(now.plus(bucketDuration));
+        } catch (DataAccessException e) {
+            logger.warn("Outbox bucket maintenance failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops past buckets that have been fully drained.
+     */
+    @LeaderOnly
+    @Scheduled(fixedDelayString = "${outbox.storage.maintenance-interval-ms:60000}")
+    public void dropDrainedBuckets() {
+        if (!bucketed) {
+            return;
+        }
+        try {
+            String droppableBefore = bucketName(Instant.now().minusMillis(dropGraceMs));
+            for (String bucket : existingBuckets()) {
+                if (bucket.compareTo(droppableBefore) >= 0) {
+                    break; // Buckets are ordered; the rest are current or too recent
+                }
+                if (mongoTemplate.exists(new Query(OutboxEventClaimService.pending()), OutboxEvent.class, bucket)) {
+                    continue;
+                }
+                // A drop cannot be undone; make sure a newer leader has not taken over meanwhile
+                if (!leaderElection.confirmLeadership()) {
+                    logger.info("No longer the leader; leaving outbox buckets to the new leader.");
+                    return;
+                }
+                mongoTemplate.dropCollection(bucket);
+                buckets.remove(bucket);
+                logger.info("Dropped drained outbox bucket {}.", bucket);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Dropping drained outbox buckets failed: {}", e.getMessage());
+        }
+    }
+
+    String bucketName(Instant timestamp) {
+        long bucketMillis = bucketDuration.toMillis();
+        Instant start = Instant.ofEpochMilli(Math.floorDiv(timestamp.toEpochMilli(), bucketMillis) * bucketMillis);
+        return baseCollection + "_" + BUCKET_FORMAT.format(start);
+    }
+
+    private Set<String> existingBuckets() {
+        Set<String> existing = new TreeSet<>();
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (name.startsWith(baseCollection + "_")) {
+                existing.add(name);
+            }
+        }
+        return existing;
+    }
+
+    private void createBucket(String bucket) {
+        try {
+            if (!mongoTemplate.collectionExists(bucket)) {
+                mongoTemplate.createCollection(bucket);
+            }
+        } catch (DataAccessException e) {
+            // Another instance created it first
+            logger.debug("Outbox bucket {} already exists: {}", bucket, e.getMessage());
+        }
+        mongoTemplate.indexOps(bucket).ensureIndex(new Index()
+                .on("status", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .named("status_timestamp"));
+        mongoTemplate.indexOps(bucket).ensureIndex(new Index()
+                .on("key", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .named("key_timestamp"));
+        // Only envelopes have 'keys'
+        mongoTemplate.indexOps(bucket).ensureIndex(new Index()
+                .on("keys", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC)
+                .partial(PartialIndexFilter.of(Criteria.where("keys").exists(true)))
+                .named("keys_timestamp"));
+        buckets.add(bucket);
+        logger.info("Created outbox bucket {}.", bucket);
+    }
+}
@@ -0,0 +1,204 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.service.KafkaCircuitBreaker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Publishes the outbox on several parallel lanes while keeping per-key order.
+ *
+ * A single claimer leases batches of events (oldest first) through the
+ * OutboxEventClaimService and hashes each event's key onto one of N lanes.
+ * Each lane is a FIFO queue drained by its own thread, so all events for a
+ * given user are published in timestamp order by the same lane, while events
+ * for different users are published concurrently.
+ *
+ * The claimer stops claiming while the lanes hold max-queued events, so queued
+ * events are published well within their lease. A lane skips events whose lease
+ * has expired anyway; they are reclaimed and published in order later.
+ * Every replica runs a claimer: leases keep their batches disjoint, so the
+ * outbox drains faster with every replica added.
+ * Replaces the AdaptiveOutboxScheduler when enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.dispatcher.enabled", havingValue = "true")
+public class OutboxDispatcher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    private final OutboxEventClaimService claimService;
+    private final EventProcessingService eventProcessingService;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.dispatcher.lanes:4}")
+    private int laneCount;
+
+    @Value("${outbox.dispatcher.batch-size:50}")
+    private int batchSize;
+
+    // Upper bound on claimed-but-unpublished events across all lanes (0 = 2 batches per lane)
+    @Value("${outbox.dispatcher.max-queued:0}")
+    private int maxQueued;
+
+    @Value("${outbox.dispatcher.idle-delay-ms:500}")
+    private long idleDelayMs;
+
+    @Value("${outbox.dispatcher.max-idle-delay-ms:10000}")
+    private long maxIdleDelayMs;
+
+    private volatile boolean running;
+    private ExecutorService executor;
+    private List<BlockingQueue<OutboxEvent>> lanes;
+    private final AtomicInteger queued = new AtomicInteger();
+
+    public OutboxDispatcher(OutboxEventClaimService claimService,
+                            EventProcessingService eventProcessingService,
+                            KafkaCircuitBreaker circuitBreaker,
+                            MeterRegistry meterRegistry) {
+        this.claimService = claimService;
+        this.eventProcessingService = eventProcessingService;
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void start() {
+        if (maxQueued <= 0) {
+            maxQueued = laneCount * batchSize * 2;
+        }
+        lanes = new ArrayList<>(laneCount);
+        for (int i = 0; i < laneCount; i++) {
+            BlockingQueue<OutboxEvent> lane = new LinkedBlockingQueue<>();
+            lanes.add(lane);
+            Gauge.builder("outbox.dispatcher.lane.backlog", lane, BlockingQueue::size)
+                    .description("Claimed outbox events waiting to be published on a lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(laneCount + 1, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-dispatcher-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        String owner = claimService.ownerId("dispatcher");
+        executor.submit(() -> runClaimer(owner));
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            executor.submit(() -> runLane(lane));
+        }
+        logger.info("Outbox dispatcher started with {} lanes, batch size {}.", laneCount, batchSize);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Whatever is still queued keeps its lease and is reclaimed once it expires
+        logger.info("Outbox dispatcher stopped with {} events still queued.", queued.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The lane for a key. Events with the same key always map to the same lane.
+     */
+    static int laneOf(String key, int laneCount) {
+        return Math.floorMod(Objects.hashCode(key), laneCount);
+    }
+
+    private void runClaimer(String owner) {
+        // Full batches loop straight away; an idle claimer backs off up to maxIdleDelayMs
+        AdaptivePollingState state = new AdaptivePollingState(batchSize, batchSize, idleDelayMs, maxIdleDelayMs);
+        while (running) {
+            long delayMs;
+            int capacity = maxQueued - queued.get();
+            if (capacity <= 0) {
+                // The lanes are behind; let them catch up before leasing more
+                delayMs = Math.min(idleDelayMs, 50);
+            } else {
+                try {
+                    // Nothing while the Kafka circuit is open, a single probe event when half-open
+                    int permitted = circuitBreaker.permittedBatchSize(Math.min(state.batchSize(), capacity));
+                    List<OutboxEvent> events = permitted > 0
+                            ? claimService.claimBatch(owner, permitted, Instant.now())
+                            : List.of();
+                    for (OutboxEvent event : events) {
+                        queued.incrementAndGet();
+                        lanes.get(laneOf(event.getKey(), laneCount)).add(event);
+                    }
+                    state.onPollCompleted(events.size());
+                } catch (Exception e) {
+                    // e.g. Mongo unavailable
+                    logger.error("Outbox dispatcher failed to claim events.", e);
+                    state.onPollFailed();
+                }
+                delayMs = state.nextDelayMs();
+            }
+
+            try {
+                if (delayMs > 0) {
+                    Thread.sleep(delayMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void runLane(int laneIndex) {
+        BlockingQueue<OutboxEvent> lane = lanes.get(laneIndex);
+        while (running) {
+            List<OutboxEvent> batch = new ArrayList<>(batchSize);
+            try {
+                OutboxEvent first = lane.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                lane.drainTo(batch, batchSize - 1);
+                queued.addAndGet(-batch.size());
+
+                // An expired lease may already have been taken over; publishing it here could reorder the key
+                Instant now = Instant.now();
+                batch.removeIf(event -> event.getLockedUntil() != null && event.getLockedUntil().isBefore(now));
+                eventProcessingService.publishBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Unacknowledged events keep their lease and are retried once it expires
+                logger.error("Outbox lane {} failed to publish a batch of {} events.", laneIndex, batch.size(), e);
+            }
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.service.userapi.outbox;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.Instant;
+import java.util.List;
 
 /**
  * Represents an event intended for publication, stored atomically
@@ -11,6 +13,11 @@ import java.time.Instant;
 @Document(collection = "outbox_events")
 public class OutboxEvent {
 
+    /**
+     * Codec of a gzip-compressed payload; see {@link #getCodec()}.
+     */
+    public static final String CODEC_GZIP = "gzip";
+
     @Id
     private String id;
 
@@ -25,20 +32,72 @@ public class OutboxEvent {
     private String key;
 
     /**
-     * The full event payload, typically serialized as a JSON string.
+     * For an EventEnvelope, the keys of all the events packed into it; null otherwise.
+     * The envelope is ordered against every one of these keys, not just its own.
+     */
+    private List<String> keys;
+
+    /**
+     * The full event payload, already serialized (UTF-8 JSON). It is stored as
+     * binary and sent to Kafka as-is, so it is never encoded a second time.
+     */
+    private byte[] payload;
+
+    /**
+     * How the payload is compressed, e.g. "gzip", or null if it is plain JSON.
+     * Published as the Kafka "content-encoding" header; the payload is sent as stored.
      */
-    private String payload;
+    private String codec;
 
     /**
      * The timestamp of when the event was created.
      */
     private Instant timestamp;
 
+    /**
+     * The dispatcher worker currently holding a lease on this event, if any.
+     */
+    private String lockedBy;
+
+    /**
+     * When the current lease expires. An expired lease (e.g. from a crashed
+     * worker) lets any other worker claim the event again.
+     */
+    private Instant lockedUntil;
+
     /**
      * The status of the event (e.g., PENDING, PUBLISHED).
-     * This is optional but can be useful for tracking.
+     * Events are only marked PUBLISHED when outbox.cleanup.mode is 'ttl';
+     * otherwise they are deleted once published.
+     */
+    private EventStatus status;
+
+    /**
+     * When the event was acknowledged by the broker. The TTL index on this
+     * field expires published events after the configured retention.
      */
-    // private EventStatus status;
+    private Instant publishedAt;
+
+    /**
+     * Number of failed publish attempts so far (see OutboxRetryPolicy).
+     */
+    private int attempts;
+
+    /**
+     * After a failed attempt, the event is not claimed again before this time.
+     */
+    private Instant nextAttemptAt;
+
+    /**
+     * The error of the latest failed attempt.
+     */
+    private String lastError;
+
+    /**
+     * The collection this event was read from (see OutboxCollections); not stored.
+     */
+    @Transient
+    private String collectionName;
 
     // Default constructor (required by JPA/Jackson)
     public OutboxEvent() {
@@ -49,14 +108,14 @@ public class OutboxEvent {
      *
      * @param topic   The destination Kafka topic.
      * @param key     The Kafka message key.
-     * @param payload The serialized event payload (JSON).
+     * @param payload The serialized event payload (UTF-8 JSON bytes).
      */
-    public OutboxEvent(String topic, String key, String payload) {
+    public OutboxEvent(String topic, String key, byte[] payload) {
         this.topic = topic;
         this.key = key;
         this.payload = payload;
         this.timestamp = Instant.now();
-        // this.status = EventStatus.PENDING; // If using status
+        this.status = EventStatus.PENDING;
     }
 
     // --- Getters and Setters ---
@@ -85,14 +144,30 @@ public class OutboxEvent {
         this.key = key;
     }
 
-    public String getPayload() {
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public byte[] getPayload() {
         return payload;
     }
 
-    public void setPayload(String payload) {
+    public void setPayload(byte[] payload) {
         this.payload = payload;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
     public Instant getTimestamp() {
         return timestamp;
     }
@@ -101,9 +176,72 @@ public class OutboxEvent {
         this.timestamp = timestamp;
     }
 
-    // Optional: Enum for status
-     public enum EventStatus {
-       PENDING,
-      PUBLISHED
-     }
-}
\ No newline at end of file
+    public String getLockedBy() {
+        return lockedBy;
+    }
+
+    public void setLockedBy(String lockedBy) {
+        this.lockedBy = lockedBy;
+    }
+
+    public Instant getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public void setLockedUntil(Instant lockedUntil) {
+        this.lockedUntil = lockedUntil;
+    }
+
+    public EventStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(EventStatus status) {
+        this.status = status;
+    }
+
+    public Instant getPublishedAt() {
+        return publishedAt;
+    }
+
+    public void setPublishedAt(Instant publishedAt) {
+        this.publishedAt = publishedAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public Instant getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(Instant nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public enum EventStatus {
+        PENDING,
+        PUBLISHED
+    }
+
+    public String getCollectionName() {
+        return collectionName;
+    }
+
+    public void setCollectionName(String collectionName) {
+        this.collectionName = collectionName;
+    }
+}
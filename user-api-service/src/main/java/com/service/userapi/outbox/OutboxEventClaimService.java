@@ -0,0 +1,331 @@
+package com.service.userapi.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Hands out leases on outbox events so that several workers, on one or many
+ * user-api-service instances, drain disjoint slices of the outbox.
+ *
+ * A batch is claimed in bulk: the due ids are looked up, one updateMulti stamps
+ * a fresh lease token on those that are still unleased, and the events carrying
+ * that token are read back. The update re-checks the lease, so two workers can
+ * never hold the same event at once. A lease that is not released (because the event was
+ * published and removed) simply expires, and the event becomes claimable again.
+ * Events waiting out a retry backoff (nextAttemptAt in the future) are not claimed,
+ * and neither is any later event with the same key: a key's events are only handed
+ * out once everything before them has been published, so a retry never lets a newer
+ * event for the same user overtake an older one. An EventEnvelope is ordered against
+ * the key of every event packed into it: it waits for all of their older events, never
+ * shares a batch with another event of those keys, and holds back their later events
+ * until it is published.
+ */
+@Service
+public class OutboxEventClaimService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxEventClaimService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxCollections collections;
+
+    @Value("${outbox.lease.duration-ms:30000}")
+    private long leaseDurationMs;
+
+    // How many of the oldest pending events a claim looks at to find claimable ones
+    @Value("${outbox.claim.scan-limit:5000}")
+    private int scanLimit;
+
+    // Identifies this instance in the 'lockedBy' field of claimed events
+    private final String instanceId;
+
+    public OutboxEventClaimService(MongoTemplate mongoTemplate,
+                                   OutboxCollections collections,
+                                   @Value("${outbox.lease.instance-id:${HOSTNAME:}}") String instanceId) {
+        this.mongoTemplate = mongoTemplate;
+        this.collections = collections;
+        this.instanceId = instanceId == null || instanceId.isBlank()
+                ? UUID.randomUUID().toString()
+                : instanceId;
+    }
+
+    /**
+     * Builds a lease owner id that is unique to a worker on this instance.
+     */
+    public String ownerId(String workerName) {
+        return instanceId + "/" + workerName;
+    }
+
+    /**
+     * Claims up to {@code batchSize} unleased events created at or before the cutoff,
+     * oldest first.
+     *
+     * @param owner     The worker taking the lease.
+     * @param batchSize The maximum number of events to claim.
+     * @param cutoff    Only events with a timestamp at or before this are claimed.
+     * @return The claimed events, in timestamp order. Empty if nothing is available.
+     */
+    public List<OutboxEvent> claimBatch(String owner, int batchSize, Instant cutoff) {
+        List<OutboxEvent> claimed = new ArrayList<>(batchSize);
+        // Keys with an earlier event that is leased elsewhere or backing off; carried
+        // across collections since the older bucket comes first
+        Set<String> blockedKeys = new HashSet<>();
+        // Oldest collection first; with bucketed storage a batch may span two buckets
+        for (String collection : collections.forRead()) {
+            while (claimed.size() < batchSize) {
+                List<OutboxEvent> leased = claimFrom(collection, owner, batchSize - claimed.size(), cutoff,
+                        blockedKeys, claimed);
+                if (leased == null) {
+                    break; // Nothing left to claim in this collection
+                }
+                claimed.addAll(leased);
+            }
+            if (claimed.size() >= batchSize) {
+                break;
+            }
+        }
+
+        if (!claimed.isEmpty()) {
+            logger.debug("Worker {} claimed {} outbox events.", owner, claimed.size());
+        }
+        return claimed;
+    }
+
+    /**
+     * Leases up to {@code limit} due events of one collection with a bounded number
+     * of round trips, however many events that is.
+     *
+     * @param blockedKeys Keys that must not be claimed; grows with every key found blocked here.
+     * @param claimed     Events already claimed by this batch, which do not block their key.
+     * @return The leased events in timestamp order (empty if every candidate was taken
+     *         by another worker in the meantime), or null if there were no candidates.
+     */
+    private List<OutboxEvent> claimFrom(String collection, String owner, int limit, Instant cutoff,
+                                        Set<String> blockedKeys, List<OutboxEvent> claimed) {
+        Instant now = Instant.now();
+        Set<String> claimedIds = new HashSet<>();
+        // Keys already in this batch; an envelope touching one of them would sit on a different lane
+        Set<String> batchKeys = new HashSet<>();
+        claimed.forEach(event -> {
+            claimedIds.add(event.getId());
+            batchKeys.addAll(orderingKeys(event));
+        });
+
+        // Walk all pending events oldest first (the (status, timestamp) index from
+        // OutboxIndexInitializer): anything not claimable blocks the rest of its key
+        Query pendingQuery = new Query(new Criteria().andOperator(pending(), Criteria.where("timestamp").lte(cutoff)))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"))
+                .limit(Math.max(scanLimit, limit));
+        pendingQuery.fields().include("_id").include("key").include("keys")
+                .include("lockedUntil").include("nextAttemptAt");
+
+        List<Object> ids = new ArrayList<>(limit);
+        Map<String, String> firstIdOfKey = new HashMap<>();
+        for (OutboxEvent event : mongoTemplate.find(pendingQuery, OutboxEvent.class, collection)) {
+            if (ids.size() >= limit) {
+                break;
+            }
+            if (claimedIds.contains(event.getId())) {
+                continue;
+            }
+            Collection<String> keys = orderingKeys(event);
+            boolean envelope = keys.size() > 1;
+            if (keys.stream().anyMatch(blockedKeys::contains)) {
+                // A partly blocked envelope blocks the rest of its keys, too
+                blockedKeys.addAll(keys);
+                continue;
+            }
+            if (isClaimable(event, now) && !(envelope && keys.stream().anyMatch(batchKeys::contains))) {
+                ids.add(event.getId());
+                keys.forEach(key -> firstIdOfKey.putIfAbsent(key, event.getId()));
+                batchKeys.addAll(keys);
+                if (envelope) {
+                    // Their later events wait until the envelope is published
+                    blockedKeys.addAll(keys);
+                }
+            } else {
+                blockedKeys.addAll(keys);
+            }
+        }
+        if (ids.isEmpty()) {
+            return null;
+        }
+
+        // The claim criteria are re-checked, so events another worker leased in between are skipped
+        String token = owner + "#" + UUID.randomUUID();
+        mongoTemplate.updateMulti(new Query(claimable(now).and("_id").in(ids)),
+                leaseUpdate(token, now), OutboxEvent.class, collection);
+
+        // Read back through the _id index; the token tells our leases from anyone else's
+        Query leasedQuery = new Query(Criteria.where("_id").in(ids).and("lockedBy").is(token))
+                .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+        List<OutboxEvent> leased = mongoTemplate.find(leasedQuery, OutboxEvent.class, collection);
+
+        // A key whose oldest candidate went to someone else must not be published ahead of it
+        Set<String> leasedIds = new HashSet<>();
+        leased.forEach(event -> leasedIds.add(event.getId()));
+        Set<String> lostKeys = new HashSet<>();
+        firstIdOfKey.forEach((key, firstId) -> {
+            if (!leasedIds.contains(firstId)) {
+                lostKeys.add(key);
+            }
+        });
+        if (!lostKeys.isEmpty()) {
+            List<Object> overtaking = leased.stream()
+                    .filter(event -> orderingKeys(event).stream().anyMatch(lostKeys::contains))
+                    .map(event -> (Object) event.getId())
+                    .toList();
+            release(collection, token, overtaking);
+            blockedKeys.addAll(lostKeys);
+            leased = leased.stream()
+                    .filter(event -> orderingKeys(event).stream().noneMatch(lostKeys::contains))
+                    .toList();
+        }
+
+        leased.forEach(event -> event.setCollectionName(collection));
+        return leased;
+    }
+
+    /**
+     * Claims a single known event, e.g. one just seen on the change stream.
+     * The claim is given up again if an older event with the same key (or, for an
+     * envelope, any of its keys) is still pending, since publishing this one first
+     * would reorder the key.
+     *
+     * @param collection The collection holding the event.
+     * @return The claimed event, or null if it is gone, leased by another worker
+     *         or queued behind an older event of its key.
+     */
+    public OutboxEvent claimById(String owner, String eventId, String collection) {
+        Instant now = Instant.now();
+        Query query = new Query(claimable(now).and("_id").is(eventId));
+
+        OutboxEvent event = mongoTemplate.findAndModify(query, leaseUpdate(owner, now),
+                FindAndModifyOptions.options().returnNew(true), OutboxEvent.class, collection);
+        if (event == null) {
+            return null;
+        }
+        if (hasOlderPending(orderingKeys(event), event.getTimestamp())) {
+            release(collection, owner, List.of(event.getId()));
+            return null;
+        }
+        event.setCollectionName(collection);
+        return event;
+    }
+
+    /**
+     * Whether any of the keys has a pending event created before the given time, in
+     * any collection that is still read, including envelopes that contain the key.
+     * Backed by the (key, timestamp) and (keys, timestamp) indexes.
+     */
+    public boolean hasOlderPending(Collection<String> keys, Instant before) {
+        if (keys.isEmpty()) {
+            return false;
+        }
+        Query query = olderPending(keys, before);
+        for (String collection : collections.forRead()) {
+            if (mongoTemplate.exists(query, OutboxEvent.class, collection)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Those of the keys that have a pending event created before the given time,
+     * like {@link #hasOlderPending(Collection, Instant)} but key by key.
+     */
+    public Set<String> keysWithOlderPending(Collection<String> keys, Instant before) {
+        Set<String> found = new HashSet<>();
+        if (keys.isEmpty()) {
+            return found;
+        }
+        Query query = olderPending(keys, before);
+        query.fields().include("key").include("keys");
+        for (String collection : collections.forRead()) {
+            for (OutboxEvent event : mongoTemplate.find(query, OutboxEvent.class, collection)) {
+                orderingKeys(event).stream().filter(keys::contains).forEach(found::add);
+            }
+        }
+        return found;
+    }
+
+    private static Query olderPending(Collection<String> keys, Instant before) {
+        return new Query(new Criteria().andOperator(
+                new Criteria().orOperator(Criteria.where("key").in(keys), Criteria.where("keys").in(keys)),
+                Criteria.where("timestamp").lt(before),
+                pending()));
+    }
+
+    /**
+     * The keys an event is ordered against: its own key or, for an envelope, the
+     * keys of all the events packed into it.
+     */
+    static Collection<String> orderingKeys(OutboxEvent event) {
+        if (event.getKeys() != null && !event.getKeys().isEmpty()) {
+            return event.getKeys();
+        }
+        return event.getKey() == null ? List.of() : List.of(event.getKey());
+    }
+
+    private void release(String collection, String lockedBy, List<Object> ids) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(ids).and("lockedBy").is(lockedBy)),
+                new Update().unset("lockedBy").unset("lockedUntil"), OutboxEvent.class, collection);
+    }
+
+    private static boolean isClaimable(OutboxEvent event, Instant now) {
+        return (event.getLockedUntil() == null || event.getLockedUntil().isBefore(now))
+                && (event.getNextAttemptAt() == null || !event.getNextAttemptAt().isAfter(now));
+    }
+
+    /**
+     * Pending, unleased events whose retry backoff (if any) has passed.
+     */
+    private Criteria claimable(Instant now) {
+        return new Criteria().andOperator(pending(), leaseAvailable(now), attemptDue(now));
+    }
+
+    static Criteria pending() {
+        // Events written before the status field existed have no status at all
+        return Criteria.where("status").in(Arrays.asList(OutboxEvent.EventStatus.PENDING, null));
+    }
+
+    private Criteria leaseAvailable(Instant now) {
+        // A missing field also matches "is null", so never-claimed events qualify
+        return new Criteria().orOperator(
+                Criteria.where("lockedUntil").is(null),
+                Criteria.where("lockedUntil").lt(now));
+    }
+
+    static Criteria attemptDue(Instant now) {
+        // Only events that failed before have a nextAttemptAt
+        return new Criteria().orOperator(
+                Criteria.where("nextAttemptAt").is(null),
+                Criteria.where("nextAttemptAt").lte(now));
+    }
+
+    // 'lockedBy' gets the owner, or owner#token for bulk claims, so it still names the worker
+    private Update leaseUpdate(String owner, Instant now) {
+        return new Update()
+                .set("lockedBy", owner)
+                .set("lockedUntil", now.plusMillis(leaseDurationMs));
+    }
+}
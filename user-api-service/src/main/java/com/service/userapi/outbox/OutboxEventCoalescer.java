@@ -0,0 +1,134 @@
+package com.service.userapi.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optional stage of the outbox relay that drops events made redundant by a
+ * later event for the same key (user id) in the same batch:
+ * - a user-updated event is superseded by a later update, since every
+ *   UserUpdatedEvent carries the user's complete latest state;
+ * - a user-deleted event supersedes earlier creates and updates.
+ *
+ * Only events no further apart than the configured window are collapsed.
+ * Surviving events keep their original order, so per-key ordering is preserved.
+ */
+@Component
+public class OutboxEventCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxEventCoalescer.class);
+
+    private final boolean enabled;
+    private final Duration window;
+    private final String userUpdatedTopic;
+    private final String userDeletedTopic;
+
+    public OutboxEventCoalescer(@Value("${outbox.coalescing.enabled:false}") boolean enabled,
+                                @Value("${outbox.coalescing.window-ms:2000}") long windowMs,
+                                @Value("${kafka.topic.user-updated}") String userUpdatedTopic,
+                                @Value("${kafka.topic.user-deleted}") String userDeletedTopic) {
+        this.enabled = enabled;
+        this.window = Duration.ofMillis(windowMs);
+        this.userUpdatedTopic = userUpdatedTopic;
+        this.userDeletedTopic = userDeletedTopic;
+    }
+
+    /**
+     * Splits a batch into the events that still need publishing and the ones
+     * that are superseded and can be acknowledged without publishing.
+     *
+     * @param events A claimed batch in timestamp order.
+     */
+    public Result coalesce(List<OutboxEvent> events) {
+        if (!enabled || events.size() < 2) {
+            return new Result(events, List.of());
+        }
+
+        // Pending (not yet superseded) events per key, in order
+        Map<String, List<OutboxEvent>> pendingByKey = new HashMap<>();
+        Set<OutboxEvent> superseded = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        for (OutboxEvent event : events) {
+            if (event.getKey() == null) {
+                continue;
+            }
+            List<OutboxEvent> pending = pendingByKey.computeIfAbsent(event.getKey(), k -> new ArrayList<>());
+
+            if (userDeletedTopic.equals(event.getTopic())) {
+                // A delete supersedes every earlier create/update in the window
+                pending.removeIf(earlier -> {
+                    boolean redundant = !userDeletedTopic.equals(earlier.getTopic()) && withinWindow(earlier, event);
+                    if (redundant) {
+                        superseded.add(earlier);
+                    }
+                    return redundant;
+                });
+            } else if (userUpdatedTopic.equals(event.getTopic()) && !pending.isEmpty()) {
+                // The latest update carries the full state; drop the previous one
+                OutboxEvent previous = pending.get(pending.size() - 1);
+                if (userUpdatedTopic.equals(previous.getTopic()) && withinWindow(previous, event)) {
+                    pending.remove(pending.size() - 1);
+                    superseded.add(previous);
+                }
+            }
+            pending.add(event);
+        }
+
+        if (superseded.isEmpty()) {
+            return new Result(events, List.of());
+        }
+
+        List<OutboxEvent> toPublish = new ArrayList<>(events.size() - superseded.size());
+        List<OutboxEvent> dropped = new ArrayList<>(superseded.size());
+        for (OutboxEvent event : events) {
+            if (superseded.contains(event)) {
+                dropped.add(event);
+            } else {
+                toPublish.add(event);
+            }
+        }
+        logger.info("Coalesced {} superseded outbox events out of {}.", dropped.size(), events.size());
+        return new Result(toPublish, dropped);
+    }
+
+    private boolean withinWindow(OutboxEvent earlier, OutboxEvent later) {
+        if (earlier.getTimestamp() == null || later.getTimestamp() == null) {
+            return false;
+        }
+        return Duration.between(earlier.getTimestamp(), later.getTimestamp()).compareTo(window) <= 0;
+    }
+
+    /**
+     * Outcome of coalescing a batch.
+     */
+    public static class Result {
+        private final List<OutboxEvent> toPublish;
+        private final List<OutboxEvent> superseded;
+
+        public Result(List<OutboxEvent> toPublish, List<OutboxEvent> superseded) {
+            this.toPublish = toPublish;
+            this.superseded = superseded;
+        }
+
+        /** Events to send to Kafka, in their original order. */
+        public List<OutboxEvent> getToPublish() {
+            return toPublish;
+        }
+
+        /** Events made redundant by a later event for the same key. */
+        public List<OutboxEvent> getSuperseded() {
+            return superseded;
+        }
+    }
+}
@@ -1,11 +1,12 @@
 // File: com.service.userapi.outbox.OutboxEventPoller.java
 package com.service.userapi.outbox;
 
+import com.service.userapi.service.KafkaCircuitBreaker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import java.time.Instant;
 import java.util.List;
 
 @Service
@@ -13,53 +14,63 @@ public class OutboxEventPoller {
 
     private static final Logger logger = LoggerFactory.getLogger(OutboxEventPoller.class);
 
-    private final OutboxEventRepository outboxEventRepository;
     private final EventProcessingService eventProcessingService;
+    private final OutboxEventClaimService claimService;
+    private final OutboxMetrics metrics;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final String pollerId;
 
-    public OutboxEventPoller(OutboxEventRepository outboxEventRepository,
-                             EventProcessingService eventProcessingService) {
-        this.outboxEventRepository = outboxEventRepository;
+    // Events younger than this are left to the change-stream relay (0 = poll everything)
+    @Value("${outbox.poller.min-age-ms:0}")
+    private long minAgeMs;
+
+    public OutboxEventPoller(EventProcessingService eventProcessingService,
+                             OutboxEventClaimService claimService,
+                             OutboxMetrics metrics,
+                             KafkaCircuitBreaker circuitBreaker) {
         this.eventProcessingService = eventProcessingService;
+        this.claimService = claimService;
+        this.metrics = metrics;
+        this.circuitBreaker = circuitBreaker;
+        this.pollerId = claimService.ownerId("poller");
     }
 
     /**
-     * Polls the outbox collection and publishes events to Kafka.
-     * This method is transactional. If publishing fails, the transaction
-     * rolls back, and the event is not deleted, so it will be retried.
+     * Polls the outbox collection once and publishes events to Kafka.
+     * Invoked by the AdaptiveOutboxScheduler, which picks the batch size and
+     * the delay until the next poll from the result.
+     * Events are leased before publishing, so replicas running the same poller
+     * (or the OutboxDispatcher workers) never publish the same event twice.
+     * The batch is published as one pipeline; see EventProcessingService.publishBatch().
+     *
+     * When the change-stream relay is enabled this acts only as a sweeper for
+     * events the stream missed, so it skips recent events.
+     *
+     * Nothing is claimed while the Kafka circuit is open; see KafkaCircuitBreaker.
+     *
+     * @param batchSize The maximum number of events to claim.
+     * @return The number of events claimed by this poll.
      */
-    @Scheduled(fixedDelay = 5000) // Run every 5 seconds
-    @Transactional
-    public void pollAndPublishEvents() {
+    public int pollAndPublishEvents(int batchSize) {
         logger.trace("Polling for outbox events...");
 
-        // Fetch a small batch of events to prevent locking the table for too long
-        List<OutboxEvent> events = outboxEventRepository.findTop10ByOrderByTimestampAsc();
+        int permitted = circuitBreaker.permittedBatchSize(batchSize);
+        if (permitted == 0) {
+            logger.trace("Kafka circuit is open; not claiming outbox events.");
+            return 0;
+        }
+
+        // Lease a small batch of events so no other worker picks them up meanwhile
+        Instant cutoff = Instant.now().minusMillis(minAgeMs);
+        List<OutboxEvent> events = claimService.claimBatch(pollerId, permitted, cutoff);
+        metrics.recordPoll(events.size());
 
         if (events.isEmpty()) {
-            return; // Nothing to do
+            return 0; // Nothing to do
         }
 
         logger.info("Found {} events to publish.", events.size());
-
-        for (OutboxEvent event : events) {
-            try {
-                // 1. Try to publish to Kafka
-                // (You may need a generic publish method on your producer)
-                eventProcessingService.processAndPublishEvent(event);
-
-                // 2. If publish is successful, delete the event from the outbox
-                outboxEventRepository.delete(event);
-                logger.info("Successfully published and deleted event: {}", event.getId());
-
-            } catch (Exception e) {
-                // If publish fails, log the error.
-                // The @Transactional annotation will roll back to delete.
-                // The event will remain in the outbox to be retried next time.
-                logger.error("Failed to publish event: {}. It will be retried.", event.getId(), e);
-
-                // 5. Delegate to the dead-letter service
-                eventProcessingService.moveToDeadLetterQueue(event, e.getMessage());
-            }
-        }
+        eventProcessingService.publishBatch(events);
+        return events.size();
     }
 }
\ No newline at end of file
@@ -0,0 +1,232 @@
+package com.service.userapi.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.service.userapi.model.EventEnvelope;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serializes domain events straight to UTF-8 JSON bytes and writes them to the outbox.
+ * The bytes are published unchanged, so each event is serialized exactly once.
+ * Call within the business transaction so the event commits together with the change.
+ *
+ * Optionally, payloads above a size threshold are gzip-compressed before they are
+ * stored, which shrinks the document, the oplog entry and the Kafka record alike.
+ * Consumers learn the codec from the record's content-encoding header.
+ *
+ * With the fast path enabled, small writes are stored with a short lease held by
+ * the OutboxFastPathPublisher, which publishes them as soon as the transaction
+ * commits. The relays only pick them up if that lease runs out. Writes go through
+ * the relays instead while the Kafka circuit is not closed, or when one of their
+ * keys still has an older event in the outbox, which must be published first.
+ *
+ * Bulk operations can pack their events into EventEnvelopes with
+ * {@link #toEnvelopes(String, String, List, Function)}: one outbox document and one
+ * Kafka record per envelope instead of per event. An envelope records the keys of
+ * the events it carries, and the relays order it against each of them.
+ */
+@Component
+public class OutboxEventWriter {
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxCollections collections;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxEventClaimService claimService;
+    private final KafkaCircuitBreaker circuitBreaker;
+
+    @Value("${outbox.compression.enabled:false}")
+    private boolean compressionEnabled;
+
+    // Small payloads barely shrink and are not worth the CPU
+    @Value("${outbox.compression.min-bytes:1024}")
+    private int compressionMinBytes;
+
+    @Value("${outbox.fast-path.enabled:false}")
+    private boolean fastPathEnabled;
+
+    // How long the relays leave a fresh event to the fast path
+    @Value("${outbox.fast-path.grace-ms:5000}")
+    private long fastPathGraceMs;
+
+    // Larger writes (bulk deletes, redrives, re-emits) are left to the relays
+    @Value("${outbox.fast-path.max-events:100}")
+    private int fastPathMaxEvents;
+
+    @Value("${outbox.envelope.max-events:500}")
+    private int envelopeMaxEvents;
+
+    // Keeps an envelope well below the broker's default 1 MB record limit
+    @Value("${outbox.envelope.max-bytes:262144}")
+    private int envelopeMaxBytes;
+
+    public OutboxEventWriter(MongoTemplate mongoTemplate,
+                             OutboxCollections collections,
+                             ObjectMapper objectMapper,
+                             ApplicationEventPublisher eventPublisher,
+                             OutboxEventClaimService claimService,
+                             KafkaCircuitBreaker circuitBreaker) {
+        this.mongoTemplate = mongoTemplate;
+        this.collections = collections;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.claimService = claimService;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Builds an outbox event without saving it, e.g. to save several with {@link #saveAll(List)}.
+     */
+    public OutboxEvent toOutboxEvent(String topic, String key, Object payload) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(payload);
+        if (compressionEnabled && json.length >= compressionMinBytes) {
+            OutboxEvent event = new OutboxEvent(topic, key, gzip(json));
+            event.setCodec(OutboxEvent.CODEC_GZIP);
+            return event;
+        }
+        return new OutboxEvent(topic, key, json);
+    }
+
+    /**
+     * Packs events into as few EventEnvelopes as the size caps allow and builds one
+     * outbox event per envelope. Each event is serialized once and embedded in its
+     * envelope as-is. The envelope is keyed by its first event's key and lists the
+     * keys of all its events, so it is never published ahead of an older event for
+     * any of them, nor behind a newer one.
+     *
+     * @param topic     The topic the events would have been published to one by one.
+     * @param eventType The simple name of the packed event type, e.g. "UserDeletedEvent".
+     * @param payloads  The events, in order; their order is kept within and across envelopes.
+     * @param keyOf     The key each event would have been published with, e.g. the user id.
+     */
+    public <T> List<OutboxEvent> toEnvelopes(String topic, String eventType, List<T> payloads,
+                                             Function<? super T, String> keyOf) throws JsonProcessingException {
+        List<OutboxEvent> envelopes = new ArrayList<>();
+        List<Object> chunk = new ArrayList<>();
+        Set<String> chunkKeys = new LinkedHashSet<>();
+        int chunkBytes = 0;
+        for (T payload : payloads) {
+            byte[] json = objectMapper.writeValueAsBytes(payload);
+            if (!chunk.isEmpty() && (chunk.size() >= envelopeMaxEvents || chunkBytes + json.length > envelopeMaxBytes)) {
+                envelopes.add(toEnvelope(topic, eventType, chunk, chunkKeys));
+                chunk = new ArrayList<>();
+                chunkKeys = new LinkedHashSet<>();
+                chunkBytes = 0;
+            }
+            chunk.add(new RawValue(new String(json, StandardCharsets.UTF_8)));
+            String key = keyOf.apply(payload);
+            if (key != null) {
+                chunkKeys.add(key);
+            }
+            // Plus the separating comma
+            chunkBytes += json.length + 1;
+        }
+        if (!chunk.isEmpty()) {
+            envelopes.add(toEnvelope(topic, eventType, chunk, chunkKeys));
+        }
+        return envelopes;
+    }
+
+    private OutboxEvent toEnvelope(String topic, String eventType, List<Object> events, Set<String> keys)
+            throws JsonProcessingException {
+        EventEnvelope envelope = new EventEnvelope(UUID.randomUUID().toString(), eventType, events);
+        if (keys.isEmpty()) {
+            return toOutboxEvent(topic, envelope.getEnvelopeId(), envelope);
+        }
+        OutboxEvent event = toOutboxEvent(topic, keys.iterator().next(), envelope);
+        event.setKeys(new ArrayList<>(keys));
+        return event;
+    }
+
+    public OutboxEvent save(String topic, String key, Object payload) throws JsonProcessingException {
+        OutboxEvent event = toOutboxEvent(topic, key, payload);
+        boolean fastPath = reserveForFastPath(List.of(event));
+        String collection = collections.forWrite(event.getTimestamp());
+        mongoTemplate.insert(event, collection);
+        event.setCollectionName(collection);
+        if (fastPath) {
+            eventPublisher.publishEvent(new OutboxEventsWritten(List.of(event)));
+        }
+        return event;
+    }
+
+    public List<OutboxEvent> saveAll(List<OutboxEvent> events) {
+        boolean fastPath = reserveForFastPath(events);
+        // One insertMany per target collection (normally exactly one)
+        Map<String, List<OutboxEvent>> byCollection = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            String collection = collections.forWrite(event.getTimestamp());
+            event.setCollectionName(collection);
+            byCollection.computeIfAbsent(collection, name -> new ArrayList<>()).add(event);
+        }
+        byCollection.forEach((collection, batch) -> mongoTemplate.insert(batch, collection));
+        if (fastPath) {
+            eventPublisher.publishEvent(new OutboxEventsWritten(events));
+        }
+        return events;
+    }
+
+    /**
+     * Leases small writes to the fast path, so the relays leave them alone unless
+     * the post-commit publish fails or never happens (e.g. the instance dies).
+     * Nothing is reserved while the circuit is open or half-open (the relays
+     * hold back until it closes), nor when a key has an outstanding event that
+     * a fast publish would overtake.
+     */
+    private boolean reserveForFastPath(List<OutboxEvent> events) {
+        if (!fastPathEnabled || events.isEmpty() || events.size() > fastPathMaxEvents
+                || circuitBreaker.getState() != KafkaCircuitBreaker.State.CLOSED) {
+            return false;
+        }
+        Set<String> keys = new HashSet<>();
+        Instant oldest = events.get(0).getTimestamp();
+        for (OutboxEvent event : events) {
+            keys.addAll(OutboxEventClaimService.orderingKeys(event));
+            if (event.getTimestamp().isBefore(oldest)) {
+                oldest = event.getTimestamp();
+            }
+        }
+        // Leased, backing off or simply not yet relayed: any of these would be overtaken
+        if (claimService.hasOlderPending(keys, oldest)) {
+            return false;
+        }
+        Instant leaseEnd = Instant.now().plusMillis(fastPathGraceMs);
+        for (OutboxEvent event : events) {
+            event.setLockedBy(OutboxFastPathPublisher.OWNER);
+            event.setLockedUntil(leaseEnd);
+        }
+        return true;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            // Cannot happen for an in-memory stream
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
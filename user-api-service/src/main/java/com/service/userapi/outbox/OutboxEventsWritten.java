@@ -0,0 +1,21 @@
+package com.service.userapi.outbox;
+
+import java.util.List;
+
+/**
+ * Application event announcing outbox events reserved for the fast path.
+ * Published by the OutboxEventWriter inside the business transaction and
+ * handled by the OutboxFastPathPublisher once that transaction has committed.
+ */
+public class OutboxEventsWritten {
+
+    private final List<OutboxEvent> events;
+
+    public OutboxEventsWritten(List<OutboxEvent> events) {
+        this.events = events;
+    }
+
+    public List<OutboxEvent> getEvents() {
+        return events;
+    }
+}
@@ -0,0 +1,184 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes outbox events right after the business transaction commits, instead
+ * of waiting for a relay to find them.
+ *
+ * The OutboxEventWriter stores these events with a short lease owned by the fast
+ * path (outbox.fast-path.grace-ms), so the poller, dispatcher and change-stream
+ * relay skip them. Once the broker acks an event it is acknowledged in the outbox
+ * like any relayed event, in batches on a background thread rather than on the
+ * producer's callback thread. If the send fails, or the instance dies before it
+ * happens, the lease simply runs out and a relay publishes the event instead; the
+ * outbox stays the durable record either way.
+ *
+ * With outbox.publisher.mode=transactional the events of one write are sent in a
+ * single Kafka transaction, like a relay batch, so read_committed consumers see
+ * all of them or none; the transaction commits on the thread that made the write.
+ *
+ * Skipped while the Kafka circuit is not closed.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.fast-path.enabled", havingValue = "true")
+public class OutboxFastPathPublisher implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxFastPathPublisher.class);
+
+    /**
+     * The 'lockedBy' value of events reserved for the fast path.
+     */
+    public static final String OWNER = "fast-path";
+
+    private final KafkaProducerService kafkaProducerService;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final EventProcessingService eventProcessingService;
+    private final OutboxMetrics metrics;
+    private final Counter published;
+    private final Counter failed;
+
+    // Acked events waiting to be acknowledged in the outbox
+    private final Queue<OutboxEvent> acked = new ConcurrentLinkedQueue<>();
+
+    @Value("${outbox.fast-path.ack-flush-ms:100}")
+    private long ackFlushMs;
+
+    @Value("${outbox.fast-path.ack-batch-size:500}")
+    private int ackBatchSize;
+
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public OutboxFastPathPublisher(KafkaProducerService kafkaProducerService,
+                                   KafkaCircuitBreaker circuitBreaker,
+                                   EventProcessingService eventProcessingService,
+                                   OutboxMetrics metrics,
+                                   MeterRegistry meterRegistry) {
+        this.kafkaProducerService = kafkaProducerService;
+        this.circuitBreaker = circuitBreaker;
+        this.eventProcessingService = eventProcessingService;
+        this.metrics = metrics;
+        this.published = Counter.builder("outbox.fast.path.events")
+                .description("Outbox events sent right after commit, by outcome")
+                .tag("result", "acked")
+                .register(meterRegistry);
+        this.failed = Counter.builder("outbox.fast.path.events")
+                .description("Outbox events sent right after commit, by outcome")
+                .tag("result", "failed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Sends the events once the transaction that wrote them has committed; nothing
+     * is sent for a rolled-back transaction. Writes made outside a transaction are
+     * already committed, so they are sent straight away.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEventsWritten(OutboxEventsWritten written) {
+        if (circuitBreaker.getState() != KafkaCircuitBreaker.State.CLOSED) {
+            logger.debug("Kafka circuit is not closed; leaving {} events to the relay.", written.getEvents().size());
+            return;
+        }
+        if (kafkaProducerService.isTransactional()) {
+            publishInTransaction(written.getEvents());
+            return;
+        }
+        for (OutboxEvent event : written.getEvents()) {
+            kafkaProducerService.publish(event).whenComplete((result, ex) -> {
+                if (ex == null) {
+                    onAcked(event);
+                } else {
+                    // The relay retries it once the fast-path lease has expired
+                    logger.debug("Fast-path publish of event {} failed: {}", event.getId(), ex.getMessage());
+                    failed.increment();
+                }
+            });
+        }
+    }
+
+    private void publishInTransaction(List<OutboxEvent> events) {
+        try {
+            // Returns once the transaction has committed, i.e. every event is acked
+            kafkaProducerService.publishInTransaction(events);
+            events.forEach(this::onAcked);
+        } catch (Exception e) {
+            // Aborted as a whole; the relay retries the events once the fast-path lease has expired
+            logger.debug("Fast-path transaction of {} events failed: {}", events.size(), e.getMessage());
+            failed.increment(events.size());
+        }
+    }
+
+    private void onAcked(OutboxEvent event) {
+        acked.add(event);
+        metrics.recordPublished(event.getTimestamp(), Instant.now());
+        published.increment();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "outbox-fast-path-acks");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushAcks, ackFlushMs, ackFlushMs, TimeUnit.MILLISECONDS);
+        logger.info("Outbox fast path enabled.");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Anything left unacknowledged is republished by a relay once its lease expires
+        flushAcks();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    void flushAcks() {
+        while (!acked.isEmpty()) {
+            List<OutboxEvent> batch = new ArrayList<>(Math.min(acked.size(), ackBatchSize));
+            OutboxEvent event;
+            while (batch.size() < ackBatchSize && (event = acked.poll()) != null) {
+                batch.add(event);
+            }
+            try {
+                eventProcessingService.acknowledge(batch);
+            } catch (Exception e) {
+                // Their leases expire and a relay publishes them again; consumers dedupe on event-id
+                logger.warn("Could not acknowledge {} fast-path events: {}", batch.size(), e.getMessage());
+                return;
+            }
+        }
+    }
+}
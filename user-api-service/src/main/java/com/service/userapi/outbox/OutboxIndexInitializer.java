@@ -0,0 +1,112 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.outbox.deadletter.DeadLetterEvent;
+import com.service.userapi.outbox.deadletter.DeadLetterRedriveJob;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Creates the indexes the outbox relay depends on when the application starts:
+ * - (status, timestamp) so claiming pending events is an index scan instead of
+ *   a collection sort;
+ * - (key, timestamp) so checking a key for older pending events is a point lookup,
+ *   and (keys, timestamp) for the envelopes that contain it;
+ * - (topic, failedTimestamp) on dead letters, for redrives filtered by topic, and
+ *   failedTimestamp for unfiltered ones (the TTL index in 'ttl' mode);
+ * - in 'ttl' cleanup mode, TTL indexes that expire published outbox events and
+ *   old dead letters after their retention period;
+ * - a TTL index that expires finished dead-letter redrive jobs.
+ */
+@Component
+public class OutboxIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${outbox.cleanup.mode:delete}")
+    private String cleanupMode;
+
+    @Value("${outbox.cleanup.published-ttl-seconds:3600}")
+    private long publishedTtlSeconds;
+
+    @Value("${outbox.cleanup.dead-letter-ttl-seconds:604800}")
+    private long deadLetterTtlSeconds;
+
+    @Value("${outbox.redrive.job-retention-seconds:604800}")
+    private long redriveJobRetentionSeconds;
+
+    public OutboxIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            mongoTemplate.indexOps(OutboxEvent.class).ensureIndex(new Index()
+                    .on("status", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.ASC)
+                    .named("status_timestamp"));
+            mongoTemplate.indexOps(OutboxEvent.class).ensureIndex(new Index()
+                    .on("key", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.ASC)
+                    .named("key_timestamp"));
+            // Only envelopes have 'keys'
+            mongoTemplate.indexOps(OutboxEvent.class).ensureIndex(new Index()
+                    .on("keys", Sort.Direction.ASC)
+                    .on("timestamp", Sort.Direction.ASC)
+                    .partial(PartialIndexFilter.of(Criteria.where("keys").exists(true)))
+                    .named("keys_timestamp"));
+
+            mongoTemplate.indexOps(DeadLetterEvent.class).ensureIndex(new Index()
+                    .on("topic", Sort.Direction.ASC)
+                    .on("failedTimestamp", Sort.Direction.ASC)
+                    .named("topic_failedTimestamp"));
+
+            if ("ttl".equalsIgnoreCase(cleanupMode)) {
+                ensureTtlIndex(OutboxEvent.class, "publishedAt", publishedTtlSeconds);
+                ensureTtlIndex(DeadLetterEvent.class, "failedTimestamp", deadLetterTtlSeconds);
+            } else {
+                // Same key as the TTL index, which Mongo would refuse next to it
+                mongoTemplate.indexOps(DeadLetterEvent.class).ensureIndex(new Index()
+                        .on("failedTimestamp", Sort.Direction.ASC)
+                        .named("failedTimestamp"));
+            }
+            ensureTtlIndex(DeadLetterRedriveJob.class, "finishedAt", redriveJobRetentionSeconds);
+            logger.info("Outbox indexes are in place (cleanup mode: {}).", cleanupMode);
+        } catch (DataAccessException e) {
+            // The relay still works without them, just with slower queries
+            logger.error("Failed to create outbox indexes.", e);
+        }
+    }
+
+    private void ensureTtlIndex(Class<?> entityClass, String field, long ttlSeconds) {
+        String indexName = field + "_ttl";
+        try {
+            mongoTemplate.indexOps(entityClass).ensureIndex(new Index()
+                    .on(field, Sort.Direction.ASC)
+                    .expire(Duration.ofSeconds(ttlSeconds))
+                    .named(indexName));
+        } catch (DataAccessException e) {
+            // The index exists with a different retention; change it in place
+            String collection = mongoTemplate.getCollectionName(entityClass);
+            mongoTemplate.executeCommand(new Document("collMod", collection)
+                    .append("index", new Document("name", indexName)
+                            .append("expireAfterSeconds", ttlSeconds)));
+            logger.info("Updated TTL of {}.{} to {} seconds.", collection, indexName, ttlSeconds);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.outbox.deadletter.DeadLetterEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Outbox health metrics, exported via /actuator/prometheus.
+ *
+ * The backlog gauges are read from a cache refreshed on a fixed delay, so a
+ * Prometheus scrape never queries MongoDB. The oldest-event age is computed at
+ * scrape time from the cached timestamp, so it keeps growing while the relay is
+ * stuck even if the refresh itself fails.
+ *
+ * That age only covers events the relay could send right now: events waiting out
+ * a retry backoff, and the later events of their keys which wait behind them,
+ * are left out, so a single failing event does not look like a stalled relay.
+ * A retried event counts from when its backoff ended.
+ */
+@Component
+public class OutboxMetrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxMetrics.class);
+
+    private static final int MAX_BACKING_OFF_KEYS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxCollections collections;
+    private final MeterRegistry meterRegistry;
+    private final Timer publishLatency;
+    private final DistributionSummary claimedPerPoll;
+
+    private volatile long pendingCount;
+    private volatile long deadLetterCount;
+    private volatile Instant oldestPendingTimestamp;
+
+    public OutboxMetrics(MongoTemplate mongoTemplate, OutboxCollections collections, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.collections = collections;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("outbox.events.pending", this, metrics -> metrics.pendingCount)
+                .description("Outbox events not yet acknowledged by Kafka")
+                .register(meterRegistry);
+        Gauge.builder("outbox.dead.letters", this, metrics -> metrics.deadLetterCount)
+                .description("Events in the dead-letter collection")
+                .register(meterRegistry);
+        Gauge.builder("outbox.oldest.pending.age", this, OutboxMetrics::oldestPendingAgeSeconds)
+                .description("Age of the oldest pending outbox event")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.publishLatency = Timer.builder("outbox.publish.latency")
+                .description("Time from the outbox write to the broker acknowledgement")
+                .register(meterRegistry);
+        this.claimedPerPoll = DistributionSummary.builder("outbox.poll.claimed")
+                .description("Outbox events claimed per poll")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${outbox.metrics.refresh-ms:5000}")
+    public void refresh() {
+        try {
+            Instant now = Instant.now();
+            Query pending = new Query(OutboxEventClaimService.pending());
+            long count = 0;
+            for (String collection : collections.forRead()) {
+                count += mongoTemplate.count(pending, OutboxEvent.class, collection);
+            }
+
+            Set<String> backingOffKeys = backingOffKeys(now);
+            Query due = new Query(new Criteria().andOperator(
+                    OutboxEventClaimService.pending(),
+                    OutboxEventClaimService.attemptDue(now),
+                    Criteria.where("key").nin(backingOffKeys),
+                    Criteria.where("keys").nin(backingOffKeys)))
+                    .with(Sort.by(Sort.Direction.ASC, "timestamp"));
+            OutboxEvent oldest = null;
+            // Collections are ordered oldest first, so the first due event found is the oldest
+            for (String collection : collections.forRead()) {
+                // Served by the status_timestamp index
+                oldest = mongoTemplate.findOne(due, OutboxEvent.class, collection);
+                if (oldest != null) {
+                    break;
+                }
+            }
+            pendingCount = count;
+            oldestPendingTimestamp = oldest != null ? dueSince(oldest) : null;
+            deadLetterCount = mongoTemplate.estimatedCount(DeadLetterEvent.class);
+        } catch (Exception e) {
+            logger.warn("Could not refresh outbox metrics: {}", e.getMessage());
+        }
+    }
+
+    private static Instant dueSince(OutboxEvent event) {
+        Instant retryAt = event.getNextAttemptAt();
+        return retryAt != null && retryAt.isAfter(event.getTimestamp()) ? retryAt : event.getTimestamp();
+    }
+
+    /**
+     * Keys with an event waiting out a retry backoff; their later events wait too.
+     * Failing events are few, so this is capped rather than indexed.
+     */
+    private Set<String> backingOffKeys(Instant now) {
+        Query backingOff = new Query(new Criteria().andOperator(
+                OutboxEventClaimService.pending(),
+                Criteria.where("nextAttemptAt").gt(now)))
+                .limit(MAX_BACKING_OFF_KEYS);
+        backingOff.fields().include("key").include("keys");
+        Set<String> keys = new HashSet<>();
+        for (String collection : collections.forRead()) {
+            for (OutboxEvent event : mongoTemplate.find(backingOff, OutboxEvent.class, collection)) {
+                keys.addAll(OutboxEventClaimService.orderingKeys(event));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * Records a broker acknowledgement for an event written at the given time.
+     */
+    public void recordPublished(Instant writtenAt, Instant acknowledgedAt) {
+        if (writtenAt != null) {
+            publishLatency.record(Duration.between(writtenAt, acknowledgedAt));
+        }
+    }
+
+    /**
+     * Counts an event that could not be published and was dead-lettered.
+     */
+    public void recordDeadLettered(String topic) {
+        Counter.builder("outbox.events.dead.lettered")
+                .description("Outbox events moved to the dead-letter queue")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * Counts a failed publish attempt that was scheduled to be retried.
+     */
+    public void recordRetryScheduled(String topic) {
+        Counter.builder("outbox.events.retried")
+                .description("Failed outbox publish attempts scheduled for a retry")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordPoll(int claimed) {
+        claimedPerPoll.record(claimed);
+    }
+
+    /**
+     * The last cached pending count; cheap enough to call on every request.
+     */
+    public long getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * Age of the oldest pending event as of now, based on the last refresh.
+     */
+    public Duration getOldestPendingAge() {
+        Instant oldest = oldestPendingTimestamp;
+        if (oldest == null) {
+            return Duration.ZERO;
+        }
+        Duration age = Duration.between(oldest, Instant.now());
+        return age.isNegative() ? Duration.ZERO : age;
+    }
+
+    private double oldestPendingAgeSeconds() {
+        return getOldestPendingAge().toMillis() / 1000.0;
+    }
+}
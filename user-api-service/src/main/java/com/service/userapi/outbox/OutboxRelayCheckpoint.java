@@ -0,0 +1,75 @@
+package com.service.userapi.outbox;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Persisted position of a change-stream relay in the 'outbox_relay_checkpoints'
+ * collection, so a restarted relay resumes right after the last event it handled.
+ */
+@Document(collection = "outbox_relay_checkpoints")
+public class OutboxRelayCheckpoint {
+
+    @Id
+    private String id;
+
+    /**
+     * The '_data' value of the last processed change-stream resume token.
+     */
+    private String resumeToken;
+
+    /**
+     * Fencing token of the leader that wrote the checkpoint; see LeaderElection.
+     */
+    private long fencingToken;
+
+    /**
+     * When the checkpoint was last advanced.
+     */
+    private Instant updatedAt;
+
+    public OutboxRelayCheckpoint() {
+    }
+
+    public OutboxRelayCheckpoint(String id, String resumeToken) {
+        this.id = id;
+        this.resumeToken = resumeToken;
+        this.updatedAt = Instant.now();
+    }
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    public long getFencingToken() {
+        return fencingToken;
+    }
+
+    public void setFencingToken(long fencingToken) {
+        this.fencingToken = fencingToken;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
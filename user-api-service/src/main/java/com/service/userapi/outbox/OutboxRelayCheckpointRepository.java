@@ -0,0 +1,8 @@
+package com.service.userapi.outbox;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxRelayCheckpointRepository extends MongoRepository<OutboxRelayCheckpoint, String> {
+}
@@ -0,0 +1,49 @@
+package com.service.userapi.outbox;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides when a failed outbox event is tried again, and when it is given up on
+ * and dead-lettered.
+ *
+ * The delay grows exponentially with the number of attempts, up to max-delay-ms.
+ * Half of it is random ("equal jitter"), so events that failed together during an
+ * outage do not all come back at the same moment once the broker recovers.
+ */
+@Component
+public class OutboxRetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+
+    public OutboxRetryPolicy(@Value("${outbox.retry.max-attempts:8}") int maxAttempts,
+                             @Value("${outbox.retry.base-delay-ms:1000}") long baseDelayMs,
+                             @Value("${outbox.retry.max-delay-ms:300000}") long maxDelayMs) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    /**
+     * @param attempts The number of failed attempts so far, including the latest.
+     * @return true if the event should be dead-lettered instead of retried.
+     */
+    public boolean isExhausted(int attempts) {
+        return attempts >= maxAttempts;
+    }
+
+    /**
+     * @param attempts The number of failed attempts so far, including the latest.
+     * @return How long to wait before the next attempt.
+     */
+    public Duration backoff(int attempts) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(Math.max(attempts - 1, 0), 30));
+        long half = ceiling / 2;
+        return Duration.ofMillis(half + ThreadLocalRandom.current().nextLong(ceiling - half + 1));
+    }
+}
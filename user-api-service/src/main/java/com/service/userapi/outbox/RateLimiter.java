@@ -0,0 +1,42 @@
+package com.service.userapi.outbox;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Minimal blocking rate limiter for background jobs that feed the outbox
+ * (e.g. dead-letter redrives), so they cannot flood it and starve live traffic.
+ *
+ * Permits are paid for after the fact: a call returns immediately if the
+ * limiter is idle, and the next call waits until the previous permits have
+ * "drained" at the configured rate.
+ */
+public class RateLimiter {
+
+    private final double permitsPerSecond;
+    private long nextFreeNanos = System.nanoTime();
+
+    /**
+     * @param permitsPerSecond The sustained rate; zero or less means unlimited.
+     */
+    public RateLimiter(double permitsPerSecond) {
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    /**
+     * Blocks until the given number of permits may be used.
+     */
+    public void acquire(int permits) throws InterruptedException {
+        if (permitsPerSecond <= 0 || permits <= 0) {
+            return;
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            waitNanos = nextFreeNanos - now;
+            nextFreeNanos = Math.max(now, nextFreeNanos) + (long) (permits * 1_000_000_000L / permitsPerSecond);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -20,7 +20,8 @@ public class DeadLetterEvent {
     private String aggregateId; // The ID of the entity (e.g., User ID)
     private String topic;         // The intended Kafka topic
     private String eventKey;      // The Kafka message key
-    private String payload;       // The JSON payload of the original event
+    private byte[] payload;       // The serialized payload of the original event
+    private String codec;         // Compression of the payload, if any (see OutboxEvent.getCodec())
 
     // --- Error Information ---
     private String errorMessage;  // The exception message that caused the failure
@@ -35,12 +36,14 @@ public class DeadLetterEvent {
     /**
      * Creates a new DeadLetterEvent from a failed OutboxEvent.
      */
-    public DeadLetterEvent(String aggregateId, String topic, String eventKey, String payload, String errorMessage) {
+    public DeadLetterEvent(String aggregateId, String topic, String eventKey, byte[] payload, String codec,
+                           String errorMessage) {
         this.id = UUID.randomUUID().toString();
         this.aggregateId = aggregateId;
         this.topic = topic;
         this.eventKey = eventKey;
         this.payload = payload;
+        this.codec = codec;
         this.errorMessage = errorMessage;
         this.failedTimestamp = Instant.now();
     }
@@ -63,10 +66,14 @@ public class DeadLetterEvent {
         return eventKey;
     }
 
-    public String getPayload() {
+    public byte[] getPayload() {
         return payload;
     }
 
+    public String getCodec() {
+        return codec;
+    }
+
     public String getErrorMessage() {
         return errorMessage;
     }
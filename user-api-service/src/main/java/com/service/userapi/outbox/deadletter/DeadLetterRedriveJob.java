@@ -0,0 +1,158 @@
+package com.service.userapi.outbox.deadletter;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Progress of a single dead-letter redrive, as reported by the admin API, stored
+ * in the 'dead_letter_redrive_jobs' collection.
+ *
+ * Finished jobs are expired by a TTL index on finishedAt
+ * (outbox.redrive.job-retention-seconds, see OutboxIndexInitializer).
+ */
+@Document(collection = "dead_letter_redrive_jobs")
+public class DeadLetterRedriveJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    @Id
+    private String id;
+
+    private Status status;
+
+    // The request's filters, for reference
+    private String topic;
+    private String errorPattern;
+
+    /**
+     * Number of dead letters matching the filters when the job started.
+     */
+    private long matched;
+
+    /**
+     * Number of dead letters moved back to the outbox so far.
+     */
+    private long requeued;
+
+    private boolean cancelRequested;
+    private String error;
+
+    /**
+     * Also the upper bound on failedTimestamp: events that fail again while the
+     * job runs are not picked up by the same job.
+     */
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    public DeadLetterRedriveJob() {
+    }
+
+    public DeadLetterRedriveJob(String topic, String errorPattern) {
+        this.id = UUID.randomUUID().toString();
+        this.status = Status.QUEUED;
+        this.topic = topic;
+        this.errorPattern = errorPattern;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getErrorPattern() {
+        return errorPattern;
+    }
+
+    public void setErrorPattern(String errorPattern) {
+        this.errorPattern = errorPattern;
+    }
+
+    public long getMatched() {
+        return matched;
+    }
+
+    public void setMatched(long matched) {
+        this.matched = matched;
+    }
+
+    public long getRequeued() {
+        return requeued;
+    }
+
+    public void setRequeued(long requeued) {
+        this.requeued = requeued;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
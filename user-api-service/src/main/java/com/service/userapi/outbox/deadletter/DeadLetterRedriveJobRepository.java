@@ -0,0 +1,8 @@
+package com.service.userapi.outbox.deadletter;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeadLetterRedriveJobRepository extends MongoRepository<DeadLetterRedriveJob, String> {
+}
@@ -0,0 +1,220 @@
+package com.service.userapi.outbox.deadletter;
+
+import com.service.userapi.exception.BadRequestException;
+import com.service.userapi.outbox.RateLimiter;
+import com.service.userapi.payload.DeadLetterRedriveRequest;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Stream;
+
+/**
+ * Replays dead letters back through the outbox in the background.
+ *
+ * Matching dead letters are streamed with a Mongo cursor and moved in batches,
+ * so even very large redrives run in constant memory. Each batch waits on a
+ * rate limiter, and jobs run one at a time, so a redrive cannot flood the outbox
+ * and starve live traffic.
+ *
+ * A job only picks up dead letters that failed before it was created, so events
+ * that fail again while it runs are not redriven over and over. Job state lives
+ * in the 'dead_letter_redrive_jobs' collection, where it survives restarts and is
+ * visible from every instance; finished jobs expire after a retention period.
+ */
+@Service
+public class DeadLetterRedriveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterRedriveService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final DeadLetterService deadLetterService;
+    private final DeadLetterRedriveJobRepository jobRepository;
+
+    // Jobs run sequentially on a single background thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "dead-letter-redrive");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${outbox.redrive.batch-size:200}")
+    private int defaultBatchSize;
+
+    @Value("${outbox.redrive.events-per-second:500}")
+    private int defaultEventsPerSecond;
+
+    public DeadLetterRedriveService(MongoTemplate mongoTemplate,
+                                    DeadLetterService deadLetterService,
+                                    DeadLetterRedriveJobRepository jobRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.deadLetterService = deadLetterService;
+        this.jobRepository = jobRepository;
+    }
+
+    /**
+     * Queues a redrive of every dead letter matching the request's filters.
+     *
+     * @return The job as queued; poll it by id for progress.
+     */
+    public DeadLetterRedriveJob startRedrive(DeadLetterRedriveRequest request) {
+        DeadLetterRedriveJob job = new DeadLetterRedriveJob(request.getTopic(), request.getErrorPattern());
+        Query query = buildQuery(request, job.getCreatedAt());
+        int batchSize = request.getBatchSize() != null ? request.getBatchSize() : defaultBatchSize;
+        int eventsPerSecond = request.getEventsPerSecond() != null ? request.getEventsPerSecond() : defaultEventsPerSecond;
+
+        jobRepository.insert(job);
+        executor.submit(() -> runRedrive(job.getId(), query, batchSize, new RateLimiter(eventsPerSecond)));
+        logger.info("Queued dead-letter redrive {} ({} per batch, {} events/s).", job.getId(), batchSize, eventsPerSecond);
+        return job;
+    }
+
+    public Optional<DeadLetterRedriveJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    public List<DeadLetterRedriveJob> getJobs() {
+        return jobRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    /**
+     * Asks a queued or running job to stop after its current batch.
+     */
+    public Optional<DeadLetterRedriveJob> cancel(String jobId) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(jobId)
+                        .and("status").in(DeadLetterRedriveJob.Status.QUEUED, DeadLetterRedriveJob.Status.RUNNING)),
+                new Update().set("cancelRequested", true),
+                DeadLetterRedriveJob.class);
+        return jobRepository.findById(jobId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    void runRedrive(String jobId, Query query, int batchSize, RateLimiter rateLimiter) {
+        try {
+            DeadLetterRedriveJob job = update(jobId, new Update()
+                    .set("status", DeadLetterRedriveJob.Status.RUNNING)
+                    .set("matched", mongoTemplate.count(query, DeadLetterEvent.class)));
+            if (job == null) {
+                return; // Deleted while queued
+            }
+            if (job.isCancelRequested()) {
+                finish(jobId, DeadLetterRedriveJob.Status.CANCELLED, null);
+                return;
+            }
+            logger.info("Dead-letter redrive {} started for {} events.", jobId, job.getMatched());
+            redrive(jobId, query, batchSize, rateLimiter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(jobId, DeadLetterRedriveJob.Status.CANCELLED, "Interrupted");
+        } catch (Exception e) {
+            logger.error("Dead-letter redrive {} failed.", jobId, e);
+            finish(jobId, DeadLetterRedriveJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the matching dead letters in batches, recording progress after each one.
+     */
+    private void redrive(String jobId, Query query, int batchSize, RateLimiter rateLimiter) throws InterruptedException {
+        // With a topic filter the (topic, failedTimestamp) index serves both the range and
+        // the sort; without one, the failedTimestamp index (TTL or plain) does
+        Query streamQuery = Query.of(query)
+                .with(Sort.by(Sort.Direction.ASC, "failedTimestamp"))
+                .cursorBatchSize(batchSize);
+
+        long requeued = 0;
+        try (Stream<DeadLetterEvent> stream = mongoTemplate.stream(streamQuery, DeadLetterEvent.class)) {
+            Iterator<DeadLetterEvent> cursor = stream.iterator();
+            List<DeadLetterEvent> batch = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize || !cursor.hasNext()) {
+                    rateLimiter.acquire(batch.size());
+                    deadLetterService.requeue(batch);
+                    requeued += batch.size();
+                    DeadLetterRedriveJob progress = update(jobId, new Update().inc("requeued", batch.size()));
+                    if (progress == null || progress.isCancelRequested()) {
+                        finish(jobId, DeadLetterRedriveJob.Status.CANCELLED, null);
+                        logger.info("Dead-letter redrive {} cancelled after {} events.", jobId, requeued);
+                        return;
+                    }
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+        finish(jobId, DeadLetterRedriveJob.Status.COMPLETED, null);
+        logger.info("Dead-letter redrive {} completed: {} events requeued.", jobId, requeued);
+    }
+
+    private DeadLetterRedriveJob update(String jobId, Update update) {
+        return mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(jobId)),
+                update.set("updatedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                DeadLetterRedriveJob.class);
+    }
+
+    private void finish(String jobId, DeadLetterRedriveJob.Status status, String error) {
+        Instant now = Instant.now();
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(jobId)),
+                new Update()
+                        .set("status", status)
+                        .set("error", error)
+                        .set("updatedAt", now)
+                        .set("finishedAt", now),
+                DeadLetterRedriveJob.class);
+    }
+
+    /**
+     * @param jobStart Dead letters that failed after this are left alone, even if the
+     *                 request asks for a later failedBefore.
+     */
+    Query buildQuery(DeadLetterRedriveRequest request, Instant jobStart) {
+        List<Criteria> filters = new ArrayList<>();
+        if (request.getTopic() != null && !request.getTopic().isBlank()) {
+            filters.add(Criteria.where("topic").is(request.getTopic()));
+        }
+        if (request.getErrorPattern() != null && !request.getErrorPattern().isBlank()) {
+            try {
+                filters.add(Criteria.where("errorMessage").regex(Pattern.compile(request.getErrorPattern())));
+            } catch (PatternSyntaxException e) {
+                throw new BadRequestException("Invalid error pattern: " + e.getDescription());
+            }
+        }
+        Criteria failed = Criteria.where("failedTimestamp");
+        if (request.getFailedAfter() != null) {
+            failed.gte(request.getFailedAfter());
+        }
+        if (request.getFailedBefore() != null && request.getFailedBefore().isBefore(jobStart)) {
+            failed.lt(request.getFailedBefore());
+        } else {
+            // Requeued events that fail again get a new failedTimestamp and are not picked up twice
+            failed.lte(jobStart);
+        }
+        filters.add(failed);
+        return new Query(new Criteria().andOperator(filters.toArray(new Criteria[0])));
+    }
+}
@@ -0,0 +1,86 @@
+package com.service.userapi.outbox.deadletter;
+
+import com.service.userapi.outbox.OutboxCollections;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves outbox events that could not be published into the dead-letter collection.
+ */
+@Service
+public class DeadLetterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final OutboxCollections collections;
+    private final OutboxEventWriter outboxEventWriter;
+    private final DeadLetterEventRepository deadLetterRepository;
+
+    public DeadLetterService(MongoTemplate mongoTemplate,
+                             OutboxCollections collections,
+                             OutboxEventWriter outboxEventWriter,
+                             DeadLetterEventRepository deadLetterRepository) {
+        this.mongoTemplate = mongoTemplate;
+        this.collections = collections;
+        this.outboxEventWriter = outboxEventWriter;
+        this.deadLetterRepository = deadLetterRepository;
+    }
+
+    /**
+     * Handles the "sad path" in its OWN NEW transaction.
+     * This ensures that even if the main processing fails,
+     * the dead-lettering is an atomic operation.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void moveToDeadLetterQueue(OutboxEvent event, String errorMessage) {
+        // 1. Create a dead-letter record
+        DeadLetterEvent dlEvent = new DeadLetterEvent(
+                event.getId(),
+                event.getTopic(),
+                event.getKey(),
+                event.getPayload(),
+                event.getCodec(),
+                errorMessage
+        );
+        deadLetterRepository.save(dlEvent);
+
+        // 2. Remove the poison pill from the main outbox
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(event.getId())), collections.of(event));
+
+        logger.info("Successfully moved poison pill event {} to dead-letter table.", event.getId());
+    }
+
+    /**
+     * Moves a batch of dead letters back into the outbox as fresh pending events,
+     * so the relay publishes them through the normal path. Inserting the outbox
+     * events and removing the dead letters happen in one transaction, so a crash
+     * mid-batch cannot replay an event twice.
+     */
+    @Transactional
+    public void requeue(List<DeadLetterEvent> deadLetters) {
+        List<OutboxEvent> events = new ArrayList<>(deadLetters.size());
+        List<String> ids = new ArrayList<>(deadLetters.size());
+        for (DeadLetterEvent deadLetter : deadLetters) {
+            OutboxEvent event = new OutboxEvent(deadLetter.getTopic(), deadLetter.getEventKey(), deadLetter.getPayload());
+            event.setCodec(deadLetter.getCodec());
+            events.add(event);
+            ids.add(deadLetter.getId());
+        }
+
+        outboxEventWriter.saveAll(events);
+        deadLetterRepository.deleteAllById(ids);
+        logger.info("Requeued {} dead-letter events to the outbox.", events.size());
+    }
+}
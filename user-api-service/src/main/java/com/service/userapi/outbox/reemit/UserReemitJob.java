@@ -0,0 +1,184 @@
+package com.service.userapi.outbox.reemit;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A re-emit job and its checkpoint, stored in the 'user_reemit_jobs' collection.
+ *
+ * Users are processed in '_id' order and lastUserId is advanced after every batch,
+ * so a job interrupted by a crash or a restart can be resumed where it stopped.
+ */
+@Document(collection = "user_reemit_jobs")
+public class UserReemitJob {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED
+    }
+
+    /**
+     * Where the regenerated events go.
+     */
+    public enum Target {
+        // Through the outbox, like live events; each batch is committed together with its checkpoint
+        OUTBOX,
+        // Straight to Kafka; a batch replayed after a crash may be published twice, with the same event ids
+        KAFKA
+    }
+
+    @Id
+    private String id;
+
+    private Status status;
+    private Target target;
+    private int batchSize;
+    private int eventsPerSecond;
+
+    /**
+     * The '_id' of the last user whose event was emitted; null before the first batch.
+     */
+    private String lastUserId;
+
+    private long emitted;
+    private boolean cancelRequested;
+
+    /**
+     * Identifies the current run of the job; its progress updates are conditional on it.
+     */
+    private String runToken;
+    private String error;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+    private Instant finishedAt;
+
+    public UserReemitJob() {
+    }
+
+    public UserReemitJob(Target target, int batchSize, int eventsPerSecond) {
+        this.id = UUID.randomUUID().toString();
+        this.status = Status.QUEUED;
+        this.target = target;
+        this.batchSize = batchSize;
+        this.eventsPerSecond = eventsPerSecond;
+        this.createdAt = Instant.now();
+        this.updatedAt = createdAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.CANCELLED || status == Status.FAILED;
+    }
+
+    // --- Getters and Setters ---
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(int eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public String getLastUserId() {
+        return lastUserId;
+    }
+
+    public void setLastUserId(String lastUserId) {
+        this.lastUserId = lastUserId;
+    }
+
+    public long getEmitted() {
+        return emitted;
+    }
+
+    public void setEmitted(long emitted) {
+        this.emitted = emitted;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public void setCancelRequested(boolean cancelRequested) {
+        this.cancelRequested = cancelRequested;
+    }
+
+    public String getRunToken() {
+        return runToken;
+    }
+
+    public void setRunToken(String runToken) {
+        this.runToken = runToken;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Instant finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
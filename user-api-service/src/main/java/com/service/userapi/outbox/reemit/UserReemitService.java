@@ -0,0 +1,431 @@
+package com.service.userapi.outbox.reemit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.service.userapi.exception.BadRequestException;
+import com.service.userapi.model.User;
+import com.service.userapi.model.UserCreatedEvent;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventClaimService;
+import com.service.userapi.outbox.OutboxEventWriter;
+import com.service.userapi.outbox.OutboxMetrics;
+import com.service.userapi.outbox.RateLimiter;
+import com.service.userapi.payload.UserReemitRequest;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Regenerates a UserCreatedEvent for every user, e.g. after the downstream
+ * UserProfiles table was lost or when a new consumer needs the full history.
+ *
+ * Users are read in '_id' order one batch at a time (keyset paging: each batch
+ * starts after the last '_id' of the previous one), so memory use does not depend
+ * on the number of users and no server-side cursor has to stay open while the job
+ * is throttled. After every batch the last '_id' is checkpointed in the job
+ * document; an interrupted job is resumed from there. Each run of a job gets a
+ * fresh run token, and its checkpoints and status updates only apply while the job
+ * still carries that token: a runner whose job was taken over by resume() stops at
+ * its next checkpoint instead of advancing the job alongside the new runner.
+ *
+ * To stay out of the way of live traffic, jobs run one at a time on a background
+ * thread, each batch waits on a rate limiter, and when writing to the outbox the
+ * job pauses while the outbox backlog is above max-outbox-backlog, well below the
+ * depth at which admission control starts shedding requests. Publishing straight
+ * to Kafka waits while the Kafka circuit is open, like the outbox relays do.
+ */
+@Service
+public class UserReemitService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReemitService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final UserReemitJobRepository jobRepository;
+    private final OutboxEventWriter outboxEventWriter;
+    private final KafkaProducerService kafkaProducerService;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final OutboxEventClaimService claimService;
+    private final OutboxMetrics outboxMetrics;
+    private final TransactionTemplate transactionTemplate;
+
+    // Jobs run sequentially on a single background thread
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "user-reemit");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Jobs queued or running on this instance
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${kafka.topic.user-created}")
+    private String userCreatedTopic;
+
+    @Value("${outbox.reemit.batch-size:500}")
+    private int defaultBatchSize;
+
+    @Value("${outbox.reemit.events-per-second:1000}")
+    private int defaultEventsPerSecond;
+
+    @Value("${outbox.reemit.max-outbox-backlog:2000}")
+    private long maxOutboxBacklog;
+
+    @Value("${outbox.reemit.backlog-check-ms:1000}")
+    private long backlogCheckMs;
+
+    // A QUEUED or RUNNING job not updated for this long is considered abandoned and may be resumed
+    @Value("${outbox.reemit.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Value("${outbox.publish.ack-timeout-ms:10000}")
+    private long ackTimeoutMs;
+
+    public UserReemitService(MongoTemplate mongoTemplate,
+                             UserReemitJobRepository jobRepository,
+                             OutboxEventWriter outboxEventWriter,
+                             KafkaProducerService kafkaProducerService,
+                             KafkaCircuitBreaker circuitBreaker,
+                             OutboxEventClaimService claimService,
+                             OutboxMetrics outboxMetrics,
+                             PlatformTransactionManager transactionManager) {
+        this.mongoTemplate = mongoTemplate;
+        this.jobRepository = jobRepository;
+        this.outboxEventWriter = outboxEventWriter;
+        this.kafkaProducerService = kafkaProducerService;
+        this.circuitBreaker = circuitBreaker;
+        this.claimService = claimService;
+        this.outboxMetrics = outboxMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Queues a job that re-emits every user from the beginning.
+     */
+    public UserReemitJob startReemit(UserReemitRequest request) {
+        UserReemitJob job = jobRepository.insert(new UserReemitJob(
+                request.getTarget() != null ? request.getTarget() : UserReemitJob.Target.OUTBOX,
+                request.getBatchSize() != null ? request.getBatchSize() : defaultBatchSize,
+                request.getEventsPerSecond() != null ? request.getEventsPerSecond() : defaultEventsPerSecond));
+        submit(job.getId());
+        logger.info("Queued user re-emit {} to {} ({} per batch, {} events/s).",
+                job.getId(), job.getTarget(), job.getBatchSize(), job.getEventsPerSecond());
+        return job;
+    }
+
+    /**
+     * Continues a cancelled, failed or abandoned job from its last checkpoint.
+     * A job is abandoned once it has not been updated for stale-after-ms while
+     * RUNNING, or while QUEUED (its instance died before picking it up).
+     */
+    public Optional<UserReemitJob> resume(String jobId) {
+        if (!jobRepository.existsById(jobId)) {
+            return Optional.empty();
+        }
+        Instant now = Instant.now();
+        Criteria resumable = new Criteria().orOperator(
+                Criteria.where("status").in(UserReemitJob.Status.CANCELLED, UserReemitJob.Status.FAILED),
+                Criteria.where("status").in(UserReemitJob.Status.QUEUED, UserReemitJob.Status.RUNNING)
+                        .and("updatedAt").lt(now.minusMillis(staleAfterMs)));
+        UserReemitJob job = localJobs.contains(jobId) ? null : mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(jobId)).addCriteria(resumable),
+                new Update()
+                        .set("status", UserReemitJob.Status.QUEUED)
+                        .set("cancelRequested", false)
+                        .set("updatedAt", now)
+                        .unset("runToken")
+                        .unset("error")
+                        .unset("finishedAt"),
+                FindAndModifyOptions.options().returnNew(true),
+                UserReemitJob.class);
+        if (job == null) {
+            throw new BadRequestException("Re-emit job " + jobId + " is completed, queued or still running");
+        }
+        submit(jobId);
+        logger.info("Resuming user re-emit {} after user {} ({} events emitted so far).",
+                jobId, job.getLastUserId(), job.getEmitted());
+        return Optional.of(job);
+    }
+
+    /**
+     * Asks a queued or running job to stop after its current batch.
+     */
+    public Optional<UserReemitJob> cancel(String jobId) {
+        mongoTemplate.updateFirst(
+                new Query(Criteria.where("_id").is(jobId)
+                        .and("status").in(UserReemitJob.Status.QUEUED, UserReemitJob.Status.RUNNING)),
+                new Update().set("cancelRequested", true),
+                UserReemitJob.class);
+        return jobRepository.findById(jobId);
+    }
+
+    public Optional<UserReemitJob> getJob(String jobId) {
+        return jobRepository.findById(jobId);
+    }
+
+    public List<UserReemitJob> getJobs() {
+        return jobRepository.findAll(Sort.by(Sort.Direction.DESC, "createdAt"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(String jobId) {
+        localJobs.add(jobId);
+        executor.submit(() -> {
+            try {
+                runReemit(jobId);
+            } finally {
+                localJobs.remove(jobId);
+            }
+        });
+    }
+
+    void runReemit(String jobId) {
+        String runToken = UUID.randomUUID().toString();
+        UserReemitJob job = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(jobId).and("status").is(UserReemitJob.Status.QUEUED)),
+                new Update()
+                        .set("status", UserReemitJob.Status.RUNNING)
+                        .set("runToken", runToken)
+                        .set("updatedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                UserReemitJob.class);
+        if (job == null) {
+            return; // Cancelled or taken over while queued
+        }
+        if (job.isCancelRequested()) {
+            finish(jobId, runToken, UserReemitJob.Status.CANCELLED, null);
+            return;
+        }
+
+        RateLimiter rateLimiter = new RateLimiter(job.getEventsPerSecond());
+        String lastUserId = job.getLastUserId();
+        logger.info("User re-emit {} started after user {}.", jobId, lastUserId);
+        try {
+            while (true) {
+                List<User> users = nextBatch(lastUserId, job.getBatchSize());
+                if (users.isEmpty()) {
+                    UserReemitJob finished = finish(jobId, runToken, UserReemitJob.Status.COMPLETED, null);
+                    logger.info("User re-emit {} completed: {} events emitted.", jobId,
+                            finished != null ? finished.getEmitted() : "?");
+                    return;
+                }
+                if (job.getTarget() == UserReemitJob.Target.OUTBOX && !awaitOutboxCapacity(jobId, runToken)) {
+                    finish(jobId, runToken, UserReemitJob.Status.CANCELLED, null);
+                    return;
+                }
+                rateLimiter.acquire(users.size());
+
+                List<OutboxEvent> events = toEvents(users);
+                String batchLastUserId = users.get(users.size() - 1).getId();
+                UserReemitJob checkpoint = job.getTarget() == UserReemitJob.Target.OUTBOX
+                        // The batch and its checkpoint commit together, so a resumed job emits no duplicates
+                        ? transactionTemplate.execute(status -> {
+                            outboxEventWriter.saveAll(events);
+                            UserReemitJob saved = checkpoint(jobId, runToken, batchLastUserId, events.size());
+                            if (saved == null) {
+                                // Taken over: the new runner emits this batch
+                                status.setRollbackOnly();
+                            }
+                            return saved;
+                        })
+                        : publishAndCheckpoint(jobId, runToken, events);
+                if (checkpoint == null) {
+                    logger.warn("User re-emit {} was taken over or deleted; stopping.", jobId);
+                    return;
+                }
+                lastUserId = checkpoint.getLastUserId();
+                if (checkpoint.isCancelRequested()) {
+                    finish(jobId, runToken, UserReemitJob.Status.CANCELLED, null);
+                    logger.info("User re-emit {} cancelled after user {}.", jobId, lastUserId);
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // Resumable from the last checkpoint
+            finish(jobId, runToken, UserReemitJob.Status.FAILED, "Interrupted");
+        } catch (Exception e) {
+            logger.error("User re-emit {} failed after user {}.", jobId, lastUserId, e);
+            finish(jobId, runToken, UserReemitJob.Status.FAILED, e.getMessage());
+        }
+    }
+
+    private List<User> nextBatch(String afterUserId, int batchSize) {
+        Query query = afterUserId == null
+                ? new Query()
+                : new Query(Criteria.where("_id").gt(afterUserId));
+        query.with(Sort.by(Sort.Direction.ASC, "_id")).limit(batchSize);
+        query.fields().include("username", "email", "firstName", "lastName");
+        return mongoTemplate.find(query, User.class);
+    }
+
+    private List<OutboxEvent> toEvents(List<User> users) throws JsonProcessingException {
+        List<OutboxEvent> events = new ArrayList<>(users.size());
+        for (User user : users) {
+            UserCreatedEvent event = new UserCreatedEvent(user.getId(), user.getUsername(), user.getEmail(),
+                    user.getFirstName(), user.getLastName());
+            events.add(outboxEventWriter.toOutboxEvent(userCreatedTopic, user.getId(), event));
+        }
+        return events;
+    }
+
+    /**
+     * Publishes the batch directly, in chunks as large as the Kafka circuit permits,
+     * and checkpoints each chunk once every event in it is acknowledged. A failure
+     * fails the job; resuming it republishes the unacknowledged chunk with the same
+     * event ids, so consumers can dedupe on the event-id header.
+     *
+     * @return The latest checkpoint, or null if the job is gone. Check it for a cancellation.
+     */
+    private UserReemitJob publishAndCheckpoint(String jobId, String runToken, List<OutboxEvent> events) throws Exception {
+        for (OutboxEvent event : events) {
+            event.setId(eventId(jobId, event.getKey()));
+        }
+        UserReemitJob checkpoint = null;
+        int from = 0;
+        while (from < events.size()) {
+            // Nothing while the circuit is open, a single probe event when half-open
+            int permitted = circuitBreaker.permittedBatchSize(events.size() - from);
+            if (permitted == 0) {
+                checkpoint = touch(jobId, runToken);
+                if (checkpoint == null || checkpoint.isCancelRequested()) {
+                    return checkpoint;
+                }
+                logger.debug("User re-emit {} waiting for the Kafka circuit to close.", jobId);
+                Thread.sleep(backlogCheckMs);
+                continue;
+            }
+            List<OutboxEvent> chunk = events.subList(from, from + permitted);
+            publish(chunk);
+            from += permitted;
+            checkpoint = checkpoint(jobId, runToken, chunk.get(chunk.size() - 1).getKey(), chunk.size());
+            if (checkpoint == null || checkpoint.isCancelRequested()) {
+                return checkpoint;
+            }
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Sends the events to Kafka and waits for the acknowledgements. A user with an
+     * older event still pending in the outbox gets the event through the outbox
+     * instead, queued behind that one; sent directly it would overtake it.
+     */
+    private void publish(List<OutboxEvent> events) throws Exception {
+        Set<String> queuedKeys = claimService.keysWithOlderPending(
+                events.stream().map(OutboxEvent::getKey).toList(), Instant.now());
+        List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            if (queuedKeys.contains(event.getKey())) {
+                enqueue(event);
+            } else {
+                futures.add(kafkaProducerService.publish(event));
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(ackTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void enqueue(OutboxEvent event) {
+        try {
+            outboxEventWriter.saveAll(List.of(event));
+        } catch (DuplicateKeyException e) {
+            // Queued by an earlier attempt at this batch and not published yet
+            logger.debug("Re-emit event {} is already in the outbox.", event.getId());
+        }
+    }
+
+    /**
+     * The event id of a user's event in a job. It stays the same when the job is
+     * resumed, unlike a random id.
+     */
+    static String eventId(String jobId, String userId) {
+        return UUID.nameUUIDFromBytes((jobId + "/" + userId).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    private UserReemitJob checkpoint(String jobId, String runToken, String lastUserId, int emitted) {
+        return mongoTemplate.findAndModify(
+                ownRun(jobId, runToken),
+                new Update()
+                        .set("lastUserId", lastUserId)
+                        .set("updatedAt", Instant.now())
+                        .inc("emitted", emitted),
+                FindAndModifyOptions.options().returnNew(true),
+                UserReemitJob.class);
+    }
+
+    /**
+     * Waits while the outbox is backed up, keeping the job's checkpoint fresh meanwhile.
+     *
+     * @return false if the job was cancelled while waiting.
+     */
+    private boolean awaitOutboxCapacity(String jobId, String runToken) throws InterruptedException {
+        while (outboxMetrics.getPendingCount() > maxOutboxBacklog) {
+            UserReemitJob job = touch(jobId, runToken);
+            if (job == null || job.isCancelRequested()) {
+                return false;
+            }
+            logger.debug("User re-emit {} waiting: {} events pending in the outbox.", jobId, outboxMetrics.getPendingCount());
+            Thread.sleep(backlogCheckMs);
+        }
+        return true;
+    }
+
+    /**
+     * The job, as long as it has not been taken over by another run.
+     */
+    private static Query ownRun(String jobId, String runToken) {
+        return new Query(Criteria.where("_id").is(jobId).and("runToken").is(runToken));
+    }
+
+    /**
+     * Refreshes the job's updatedAt while it waits, so it does not look abandoned.
+     */
+    private UserReemitJob touch(String jobId, String runToken) {
+        return mongoTemplate.findAndModify(
+                ownRun(jobId, runToken),
+                new Update().set("updatedAt", Instant.now()),
+                FindAndModifyOptions.options().returnNew(true),
+                UserReemitJob.class);
+    }
+
+    private UserReemitJob finish(String jobId, String runToken, UserReemitJob.Status status, String error) {
+        Instant now = Instant.now();
+        return mongoTemplate.findAndModify(
+                ownRun(jobId, runToken),
+                new Update()
+                        .set("status", status)
+                        .set("error", error)
+                        .set("updatedAt", now)
+                        .set("finishedAt", now),
+                FindAndModifyOptions.options().returnNew(true),
+                UserReemitJob.class);
+    }
+}
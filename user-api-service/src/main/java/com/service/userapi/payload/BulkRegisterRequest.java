@@ -0,0 +1,28 @@
+package com.service.userapi.payload;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+/**
+ * Registers many users in one call, e.g. when onboarding an enterprise customer.
+ * Each entry is validated on its own and gets its own result, so one bad entry
+ * does not fail the others.
+ */
+public class BulkRegisterRequest {
+
+    @NotEmpty(message = "At least one user is required")
+    @Size(max = 1000, message = "At most 1000 users can be registered per request")
+    private List<RegisterRequest> users;
+
+    // --- Getters and Setters ---
+
+    public List<RegisterRequest> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<RegisterRequest> users) {
+        this.users = users;
+    }
+}
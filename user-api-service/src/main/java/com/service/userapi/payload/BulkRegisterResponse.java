@@ -0,0 +1,20 @@
+package com.service.userapi.payload;
+
+import java.util.List;
+
+/**
+ * Per-entry results of a bulk registration, in request order.
+ */
+public class BulkRegisterResponse {
+    public int created;
+    public int failed;
+    public List<BulkRegisterResult> results;
+
+    public BulkRegisterResponse(List<BulkRegisterResult> results) {
+        this.results = results;
+        this.created = (int) results.stream()
+                .filter(result -> result.status == BulkRegisterResult.Status.CREATED)
+                .count();
+        this.failed = results.size() - created;
+    }
+}
@@ -0,0 +1,37 @@
+package com.service.userapi.payload;
+
+/**
+ * The outcome for one entry of a BulkRegisterRequest, at the same index.
+ */
+public class BulkRegisterResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    public int index;
+    public Status status;
+    public String userId; // Only set when CREATED
+    public String message;
+
+    public BulkRegisterResult(int index, Status status, String userId, String message) {
+        this.index = index;
+        this.status = status;
+        this.userId = userId;
+        this.message = message;
+    }
+
+    public static BulkRegisterResult created(int index, String userId) {
+        return new BulkRegisterResult(index, Status.CREATED, userId, "User created successfully");
+    }
+
+    public static BulkRegisterResult duplicate(int index, String message) {
+        return new BulkRegisterResult(index, Status.DUPLICATE, null, message);
+    }
+
+    public static BulkRegisterResult invalid(int index, String message) {
+        return new BulkRegisterResult(index, Status.INVALID, null, message);
+    }
+}
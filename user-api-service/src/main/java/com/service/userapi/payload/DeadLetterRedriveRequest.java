@@ -0,0 +1,81 @@
+package com.service.userapi.payload;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+import java.time.Instant;
+
+/**
+ * Selects which dead letters to replay. All filters are optional and combined with AND;
+ * an empty request replays every dead letter.
+ */
+public class DeadLetterRedriveRequest {
+
+    // Only dead letters for this Kafka topic
+    private String topic;
+
+    // Regular expression matched against the recorded error message
+    private String errorPattern;
+
+    // Only dead letters that failed at or after / before this instant
+    private Instant failedAfter;
+    private Instant failedBefore;
+
+    // Optional overrides for the configured batch size and rate limit
+    @Min(value = 1, message = "Batch size must be at least 1")
+    @Max(value = 5000, message = "Batch size must be at most 5000")
+    private Integer batchSize;
+
+    @Min(value = 1, message = "Rate must be at least 1 event per second")
+    private Integer eventsPerSecond;
+
+    // --- Getters and Setters ---
+
+    public String getTopic() {
+        return topic;
+    }
+
+    public void setTopic(String topic) {
+        this.topic = topic;
+    }
+
+    public String getErrorPattern() {
+        return errorPattern;
+    }
+
+    public void setErrorPattern(String errorPattern) {
+        this.errorPattern = errorPattern;
+    }
+
+    public Instant getFailedAfter() {
+        return failedAfter;
+    }
+
+    public void setFailedAfter(Instant failedAfter) {
+        this.failedAfter = failedAfter;
+    }
+
+    public Instant getFailedBefore() {
+        return failedBefore;
+    }
+
+    public void setFailedBefore(Instant failedBefore) {
+        this.failedBefore = failedBefore;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Integer getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(Integer eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+}
@@ -0,0 +1,27 @@
+package com.service.userapi.payload;
+
+import com.service.userapi.model.User;
+
+import java.util.List;
+
+/**
+ * One page of the user listing, plus the opaque cursor for the next page
+ * (null on the last page).
+ */
+public class UserPage {
+    private final List<User> users;
+    private final String nextCursor;
+
+    public UserPage(List<User> users, String nextCursor) {
+        this.users = users;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<User> getUsers() {
+        return users;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,49 @@
+package com.service.userapi.payload;
+
+import com.service.userapi.outbox.reemit.UserReemitJob;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Starts a job that regenerates a UserCreatedEvent for every existing user,
+ * e.g. to rebuild a downstream store or to seed a new consumer.
+ */
+public class UserReemitRequest {
+
+    // OUTBOX (default) or KAFKA
+    private UserReemitJob.Target target;
+
+    // Optional overrides for the configured batch size and rate limit
+    @Min(value = 1, message = "Batch size must be at least 1")
+    @Max(value = 5000, message = "Batch size must be at most 5000")
+    private Integer batchSize;
+
+    @Min(value = 1, message = "Rate must be at least 1 event per second")
+    private Integer eventsPerSecond;
+
+    // --- Getters and Setters ---
+
+    public UserReemitJob.Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(UserReemitJob.Target target) {
+        this.target = target;
+    }
+
+    public Integer getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(Integer batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Integer getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(Integer eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+}
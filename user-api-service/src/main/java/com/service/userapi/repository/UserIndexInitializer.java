@@ -0,0 +1,87 @@
+package com.service.userapi.repository;
+
+import com.service.userapi.model.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates unique indexes on users.username and users.email when the application
+ * starts. With them in place user creation is a single insert: a collision comes
+ * back as a duplicate key error naming the index, and two concurrent registrations
+ * of the same username can no longer both succeed.
+ *
+ * Until the indexes are confirmed (or if they cannot be created, e.g. because the
+ * collection already holds duplicates) UserService falls back to querying for
+ * existing users before it inserts.
+ */
+@Component
+public class UserIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIndexInitializer.class);
+
+    public static final String USERNAME_INDEX = "username_unique";
+    public static final String EMAIL_INDEX = "email_unique";
+
+    private final MongoTemplate mongoTemplate;
+
+    private volatile boolean uniqueIndexesReady;
+
+    public UserIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        try {
+            mongoTemplate.indexOps(User.class).ensureIndex(new Index()
+                    .on("username", Sort.Direction.ASC)
+                    .unique()
+                    .named(USERNAME_INDEX));
+
+            mongoTemplate.indexOps(User.class).ensureIndex(new Index()
+                    .on("email", Sort.Direction.ASC)
+                    .unique()
+                    .named(EMAIL_INDEX));
+
+            uniqueIndexesReady = true;
+            logger.info("User unique indexes are in place.");
+        } catch (DataAccessException e) {
+            // Registration still works, with a lookup per field before each insert
+            logger.error("Failed to create user unique indexes; checking for duplicates by query instead.", e);
+        }
+    }
+
+    /**
+     * Whether the database itself rejects duplicate usernames and emails.
+     */
+    public boolean isUniqueIndexesReady() {
+        return uniqueIndexesReady;
+    }
+
+    /**
+     * Names the unique index a duplicate key error was raised for.
+     *
+     * @return {@link #USERNAME_INDEX}, {@link #EMAIL_INDEX}, or null for any other index (e.g. _id).
+     */
+    public static String collidingIndex(DuplicateKeyException e) {
+        String message = e.getMessage();
+        if (message == null) {
+            return null;
+        }
+        if (message.contains(USERNAME_INDEX)) {
+            return USERNAME_INDEX;
+        }
+        if (message.contains(EMAIL_INDEX)) {
+            return EMAIL_INDEX;
+        }
+        return null;
+    }
+}
@@ -1,10 +1,32 @@
 package com.service.userapi.repository;
 import com.service.userapi.model.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 @Repository
 public interface UserRepository extends MongoRepository<User, String> {
     Optional<User> findByUsername(String username);
     Optional<User> findByEmail(String email);
-}
\ No newline at end of file
+    boolean existsByUsername(String username);
+    boolean existsByEmail(String email);
+
+    // Duplicate checks for bulk registration: one $in query per field, returning only that field
+    @Query(value = "{ 'username': { $in: ?0 } }", fields = "{ 'username': 1 }")
+    List<User> findUsernamesIn(Collection<String> usernames);
+
+    @Query(value = "{ 'email': { $in: ?0 } }", fields = "{ 'email': 1 }")
+    List<User> findEmailsIn(Collection<String> emails);
+
+    // Keyset paging on _id for the user listing; both are served by the _id index
+    List<User> findAllByOrderByIdAsc(Limit limit);
+    List<User> findByIdGreaterThanOrderByIdAsc(String id, Limit limit);
+
+    // Backed by a cursor: documents are fetched in batches as the stream is consumed
+    Stream<User> streamAllByOrderByIdAsc();
+}
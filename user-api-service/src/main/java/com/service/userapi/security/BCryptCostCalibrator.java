@@ -0,0 +1,37 @@
+package com.service.userapi.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the BCrypt cost for this hardware: the highest cost whose hash still
+ * takes no longer than the target time, within [min, max]. Each extra cost
+ * step doubles the work, so one timed hash at the minimum cost is enough.
+ */
+public final class BCryptCostCalibrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BCryptCostCalibrator.class);
+
+    private BCryptCostCalibrator() {
+    }
+
+    public static int calibrate(long targetMs, int minCost, int maxCost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minCost);
+        // The first hash pays for class loading and JIT warm-up
+        encoder.encode("calibration");
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        double elapsedMs = Math.max(0.001, (System.nanoTime() - start) / 1_000_000.0);
+
+        int cost = minCost;
+        double expectedMs = elapsedMs;
+        while (cost < maxCost && expectedMs * 2 <= targetMs) {
+            cost++;
+            expectedMs *= 2;
+        }
+        logger.info("BCrypt cost {} takes {} ms here; using cost {} (~{} ms per hash, target {} ms).",
+                minCost, Math.round(elapsedMs), cost, Math.round(expectedMs), targetMs);
+        return cost;
+    }
+}
@@ -3,6 +3,12 @@ package com.service.userapi.security;
 import com.service.userapi.model.User; // <-- Import your User model
 import com.service.userapi.repository.UserRepository; // <-- Import your User repository
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -10,11 +16,14 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     @Autowired
     UserRepository userRepository;
 
+    @Autowired
+    MongoTemplate mongoTemplate;
+
     /**
      * This method is used by Spring Security to load a user by username (or email)
      */
@@ -42,4 +51,24 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return UserPrincipal.create(user);
     }
-}
\ No newline at end of file
+
+    /**
+     * Called by Spring Security after a successful login when the stored hash needs
+     * upgrading (e.g. its BCrypt cost differs from the calibrated one), with the
+     * password re-encoded from the one just presented. Only the hash is updated.
+     */
+    @Override
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        String id = ((UserPrincipal) user).getId();
+        User updated = mongoTemplate.findAndModify(
+                new Query(Criteria.where("_id").is(id)),
+                new Update().set("password", newPassword),
+                FindAndModifyOptions.options().returnNew(true),
+                User.class);
+        if (updated == null) {
+            // Deleted in the meantime; the login itself already succeeded
+            return user;
+        }
+        return UserPrincipal.create(updated);
+    }
+}
@@ -0,0 +1,71 @@
+package com.service.userapi.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt at a fixed cost, with every encode and match run on the
+ * PasswordHashingExecutor. This covers registration in UserService as well as
+ * the password check inside the AuthenticationManager on login. Bulk callers use
+ * {@link #encodeAll(List)}, which runs under the executor's bulk cap.
+ *
+ * A stored hash whose cost differs from the current one needs upgrading; Spring
+ * Security then re-encodes the password on the next successful login through
+ * the UserDetailsPasswordService.
+ */
+public class OffloadingPasswordEncoder implements PasswordEncoder {
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final BCryptPasswordEncoder delegate;
+    private final int cost;
+    private final PasswordHashingExecutor executor;
+
+    public OffloadingPasswordEncoder(int cost, PasswordHashingExecutor executor) {
+        this.delegate = new BCryptPasswordEncoder(cost);
+        this.cost = cost;
+        this.executor = executor;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return executor.execute(() -> delegate.encode(rawPassword));
+    }
+
+    /**
+     * Encodes a batch of passwords as bulk work, so it cannot crowd out logins.
+     *
+     * @return The hashes, in the order of the passwords.
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        List<Supplier<String>> tasks = new ArrayList<>(rawPasswords.size());
+        for (CharSequence rawPassword : rawPasswords) {
+            tasks.add(() -> delegate.encode(rawPassword));
+        }
+        return executor.executeAll(tasks);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return executor.execute(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    public int getCost() {
+        return cost;
+    }
+}
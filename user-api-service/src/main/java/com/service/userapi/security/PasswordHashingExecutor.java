@@ -0,0 +1,202 @@
+package com.service.userapi.security;
+
+import com.service.userapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs password hashing and verification on a small pool sized to the cores,
+ * instead of on whichever request thread asked for it.
+ *
+ * BCrypt is deliberately CPU-bound: with hundreds of Tomcat threads hashing at
+ * once during a signup or login storm, every other endpoint waits for CPU. Here
+ * at most 'threads' hashes run at a time and the rest queue. A hash that cannot
+ * start within max-wait-ms (or finds the queue full) is rejected with 503 and
+ * Retry-After, so callers fail fast instead of piling up behind the backlog.
+ *
+ * Bulk work (e.g. bulk registration) goes through {@link #executeAll(List)}
+ * instead: it has no wait budget, but all bulk tasks together hold at most
+ * bulk-max-concurrency queue slots and threads at a time. A large bulk request
+ * therefore never fills the queue, and logins keep the remaining threads.
+ */
+@Component
+public class PasswordHashingExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingExecutor.class);
+
+    private final ThreadPoolExecutor pool;
+    // Queued or running bulk tasks, across all bulk callers
+    private final Semaphore bulkPermits;
+    private final int bulkMaxConcurrency;
+    private final long maxWaitMs;
+    private final long retryAfterSeconds;
+    private final Timer waitTimer;
+    private final Counter rejected;
+
+    public PasswordHashingExecutor(@Value("${password-hashing.threads:0}") int threads,
+                                   @Value("${password-hashing.queue-capacity:1000}") int queueCapacity,
+                                   @Value("${password-hashing.max-wait-ms:2000}") long maxWaitMs,
+                                   @Value("${password-hashing.retry-after-seconds:1}") long retryAfterSeconds,
+                                   @Value("${password-hashing.bulk-max-concurrency:0}") int bulkMaxConcurrency,
+                                   MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        // By default bulk work gets at most half of the threads
+        this.bulkMaxConcurrency = bulkMaxConcurrency > 0 ? bulkMaxConcurrency : Math.max(1, poolSize / 2);
+        this.bulkPermits = new Semaphore(this.bulkMaxConcurrency, true);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxWaitMs = maxWaitMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("password.hashing.queue.depth", pool, executor -> executor.getQueue().size())
+                .description("Password hashes waiting for a hashing thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", pool, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashes currently running")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.bulk.in.flight", bulkPermits,
+                        permits -> this.bulkMaxConcurrency - permits.availablePermits())
+                .description("Bulk password hashes queued or running")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("password.hashing.wait")
+                .description("Time a password hash waited for a hashing thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashes rejected because the queue was full or the wait budget ran out")
+                .register(meterRegistry);
+        logger.info("Password hashing on {} threads (queue {}, max wait {} ms, bulk at most {}).",
+                poolSize, queueCapacity, maxWaitMs, this.bulkMaxConcurrency);
+    }
+
+    /**
+     * Runs a hashing task on the pool and waits for its result.
+     *
+     * @throws ServiceUnavailableException if the task could not start within the wait budget.
+     */
+    public <T> T execute(Supplier<T> task) {
+        long enqueuedAt = System.nanoTime();
+        // Whoever sets this first wins: the worker starting the task, or the caller giving up on it
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<T> future;
+        try {
+            future = pool.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) {
+                    return null;
+                }
+                waitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+                return task.get();
+            });
+        } catch (RejectedExecutionException e) {
+            throw reject("queue full");
+        }
+
+        try {
+            try {
+                return future.get(maxWaitMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    future.cancel(false);
+                    throw reject("waited " + maxWaitMs + " ms");
+                }
+                // Already running; it finishes within one hash time
+                return future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(false);
+            throw reject("interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    /**
+     * Runs a batch of hashing tasks, at most bulk-max-concurrency at a time across
+     * all bulk callers, and waits for all results. The calling thread blocks until
+     * a bulk slot frees up; there is no wait budget, since only other bulk work
+     * holds those slots.
+     *
+     * @return The results, in task order.
+     * @throws ServiceUnavailableException if the shared queue is full (interactive overload).
+     */
+    public <T> List<T> executeAll(List<? extends Supplier<T>> tasks) {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Supplier<T> task : tasks) {
+                bulkPermits.acquire();
+                FutureTask<T> future = new FutureTask<>(task::get) {
+                    @Override
+                    protected void done() {
+                        // Runs once on completion, failure or cancellation
+                        bulkPermits.release();
+                    }
+                };
+                try {
+                    pool.execute(future);
+                } catch (RejectedExecutionException e) {
+                    bulkPermits.release();
+                    throw reject("queue full");
+                }
+                futures.add(future);
+            }
+
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw reject("interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        } finally {
+            // No-op for finished tasks; frees the slots of the rest if we bail out
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    private ServiceUnavailableException reject(String reason) {
+        rejected.increment();
+        logger.warn("Rejected a password hash ({}); {} queued.", reason, pool.getQueue().size());
+        return new ServiceUnavailableException("The service is busy, please retry shortly", retryAfterSeconds);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.service.userapi.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker for outbox publishing, fed with the outcome of every send by
+ * the KafkaProducerService.
+ *
+ * After failure-threshold consecutive failed sends the circuit opens and the outbox
+ * relays stop claiming events, instead of leasing and failing batch after batch
+ * against a broker that is down. After open-ms a single probe event is let through
+ * (half-open): if the broker acknowledges it the circuit closes, otherwise it stays
+ * open for another open-ms.
+ */
+@Component
+public class KafkaCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaCircuitBreaker.class);
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    // While not CLOSED: System.nanoTime() at which the next probe may be sent
+    private long probeAtNanos;
+
+    public KafkaCircuitBreaker(@Value("${outbox.circuit-breaker.failure-threshold:20}") int failureThreshold,
+                               @Value("${outbox.circuit-breaker.open-ms:30000}") long openMs,
+                               MeterRegistry meterRegistry) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+
+        Gauge.builder("outbox.publisher.circuit.state", this, breaker -> breaker.getState().ordinal())
+                .description("Outbox publisher circuit: 0 = closed, 1 = open, 2 = half-open")
+                .register(meterRegistry);
+    }
+
+    /**
+     * How many events a relay may claim and publish right now.
+     *
+     * @param requested The batch size the relay would like to publish.
+     * @return {@code requested} while closed, 1 for the probe once the circuit is
+     *         due to be tried again, and 0 otherwise.
+     */
+    public synchronized int permittedBatchSize(int requested) {
+        if (failureThreshold <= 0 || state == State.CLOSED) {
+            return requested;
+        }
+        long now = System.nanoTime();
+        if (now - probeAtNanos < 0) {
+            return 0;
+        }
+        // Also covers a probe that never reported back (e.g. nothing was left to claim)
+        state = State.HALF_OPEN;
+        probeAtNanos = now + openNanos;
+        logger.info("Kafka circuit half-open: sending a probe event.");
+        return Math.min(requested, 1);
+    }
+
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            logger.info("Kafka circuit closed: the broker acknowledged again.");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && failureThreshold > 0 && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Kafka circuit opened after {} consecutive failed sends; pausing the outbox relay for {} ms.",
+                    consecutiveFailures, TimeUnit.NANOSECONDS.toMillis(openNanos));
+            state = State.OPEN;
+            probeAtNanos = System.nanoTime() + openNanos;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
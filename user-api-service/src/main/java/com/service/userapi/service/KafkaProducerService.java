@@ -1,18 +1,44 @@
 package com.service.userapi.service;
 import com.service.userapi.model.UserCreatedEvent;
 import com.service.userapi.model.UserDeletedEvent;
+import com.service.userapi.outbox.OutboxEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 @Service
 public class KafkaProducerService {
     private static final Logger logger = LoggerFactory.getLogger(KafkaProducerService.class);
+
+    /**
+     * Header carrying the outbox event id. It is stable across republishes, so consumers can dedupe on it.
+     */
+    public static final String EVENT_ID_HEADER = "event-id";
+
+    /**
+     * Header naming the payload codec (e.g. "gzip"); absent for plain JSON payloads.
+     */
+    public static final String CONTENT_ENCODING_HEADER = "content-encoding";
+
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    // Outbox payloads are pre-serialized bytes and bypass the JsonSerializer
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate;
+    // Only present when outbox.publisher.mode=transactional
+    private final KafkaTemplate<String, byte[]> transactionalKafkaTemplate;
+    private final KafkaCircuitBreaker circuitBreaker;
+    private final MeterRegistry meterRegistry;
 
     @Value("${kafka.topic.user-created}")
     private String userCreatedTopic;
@@ -20,34 +46,103 @@ public class KafkaProducerService {
     @Value("${kafka.topic.user-deleted}") // <-- ADD THIS
     private String userDeletedTopic;
 
-    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate) {
+    public KafkaProducerService(KafkaTemplate<String, Object> kafkaTemplate,
+                                @Qualifier("outboxKafkaTemplate") KafkaTemplate<String, byte[]> outboxKafkaTemplate,
+                                @Qualifier("transactionalKafkaTemplate")
+                                ObjectProvider<KafkaTemplate<String, byte[]>> transactionalKafkaTemplate,
+                                KafkaCircuitBreaker circuitBreaker,
+                                MeterRegistry meterRegistry) {
 
         this.kafkaTemplate = kafkaTemplate;
+        this.outboxKafkaTemplate = outboxKafkaTemplate;
+        this.transactionalKafkaTemplate = transactionalKafkaTemplate.getIfAvailable();
+        this.circuitBreaker = circuitBreaker;
+        this.meterRegistry = meterRegistry;
 
     }
 
     /**
-     * Publishes a generic event to a specified Kafka topic.
-     * This is used by the OutboxEventPoller.
+     * Publishes an outbox event to its topic without waiting for the broker.
+     * This is used by the outbox relay, which awaits a whole batch of these futures at once.
+     * Every outcome is reported to the KafkaCircuitBreaker.
      *
-     * @param topic   The destination topic.
-     * @param key     The message key.
-     * @param payload The message payload (already serialized as a JSON string).
+     * @param event The outbox event; its payload is already serialized JSON and is sent unchanged.
+     * @return A future completed with the broker acknowledgement, or exceptionally if the send failed.
      */
-    public void publish(String topic, String key, String payload) {
-        logger.info("Publishing generic event to topic {}: key={}", topic, key);
+    public CompletableFuture<SendResult<String, byte[]>> publish(OutboxEvent event) {
+        logger.debug("Publishing outbox event {} to topic {}: key={}", event.getId(), event.getTopic(), event.getKey());
         try {
-            // The payload is already a JSON string from the outbox,
+            // The payload is already JSON bytes from the outbox,
             // so we send it directly.
-            kafkaTemplate.send(topic, key, payload);
+            return outboxKafkaTemplate.send(toRecord(event))
+                    .whenComplete((result, ex) -> {
+                        if (ex != null) {
+                            recordFailure(event.getTopic());
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onSuccess();
+                        }
+                    });
         } catch (Exception e) {
-            logger.error("Failed to publish generic event to topic {}: {}", topic, e.getMessage());
-            // Re-throw the exception so the OutboxEventPoller's transaction
-            // will roll back, and the event will not be deleted.
-            throw new RuntimeException("Kafka publishing failed", e);
+            // send() can also fail before the record is queued (e.g. metadata timeout)
+            logger.error("Failed to publish outbox event {} (key {}) to topic {}: {}",
+                    event.getId(), event.getKey(), event.getTopic(), e.getMessage());
+            recordFailure(event.getTopic());
+            circuitBreaker.onFailure();
+            return CompletableFuture.failedFuture(new RuntimeException("Kafka publishing failed", e));
         }
     }
 
+    public boolean isTransactional() {
+        return transactionalKafkaTemplate != null;
+    }
+
+    /**
+     * Publishes the events in a single Kafka transaction: read_committed consumers see
+     * either all of them or none. Throws if the transaction is aborted.
+     *
+     * @return The send futures, all completed once the transaction has committed.
+     */
+    public List<CompletableFuture<SendResult<String, byte[]>>> publishInTransaction(List<OutboxEvent> events) {
+        if (transactionalKafkaTemplate == null) {
+            throw new IllegalStateException("Transactional publishing is not enabled (outbox.publisher.mode)");
+        }
+        try {
+            List<CompletableFuture<SendResult<String, byte[]>>> sent = transactionalKafkaTemplate.executeInTransaction(operations -> {
+                List<CompletableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(events.size());
+                for (OutboxEvent event : events) {
+                    futures.add(operations.send(toRecord(event)));
+                }
+                return futures;
+            });
+            circuitBreaker.onSuccess();
+            return sent;
+        } catch (RuntimeException e) {
+            events.forEach(event -> recordFailure(event.getTopic()));
+            circuitBreaker.onFailure();
+            throw e;
+        }
+    }
+
+    private ProducerRecord<String, byte[]> toRecord(OutboxEvent event) {
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(event.getTopic(), event.getKey(), event.getPayload());
+        if (event.getId() != null) {
+            record.headers().add(EVENT_ID_HEADER, event.getId().getBytes(StandardCharsets.UTF_8));
+        }
+        if (event.getCodec() != null) {
+            record.headers().add(CONTENT_ENCODING_HEADER, event.getCodec().getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private void recordFailure(String topic) {
+        Counter.builder("kafka.publish.failures")
+                .description("Kafka sends that failed or were rejected by the broker")
+                .tag("topic", topic)
+                .register(meterRegistry)
+                .increment();
+    }
+
 
     public void publishUserCreatedEvent(UserCreatedEvent event) {
         logger.info("Publishing UserCreatedEvent for userId: {}", event.getUserId());
@@ -60,6 +155,7 @@ public class KafkaProducerService {
             } else {
                 logger.error("Failed to publish event for userId: {}",
                         event.getUserId(), ex);
+                recordFailure(userCreatedTopic);
             }
         });
     }
@@ -74,6 +170,7 @@ public class KafkaProducerService {
                 logger.info("Successfully published UserDeletedEvent for userId: {}", event.getUserId());
             } else {
                 logger.error("Failed to publish UserDeletedEvent for userId: {}", event.getUserId(), ex);
+                recordFailure(userDeletedTopic);
             }
         });
     }
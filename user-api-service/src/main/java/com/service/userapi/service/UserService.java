@@ -1,5 +1,6 @@
 package com.service.userapi.service;
 
+import com.service.userapi.availability.UserAvailabilityIndex;
 import com.service.userapi.exception.BadRequestException;
 import com.service.userapi.exception.UserAlreadyExistsException;
 import com.service.userapi.exception.UserNotFoundException;
@@ -8,25 +9,42 @@ import com.service.userapi.model.User;
 import com.service.userapi.model.UserCreatedEvent;
 import com.service.userapi.model.UserDeletedEvent;
 import com.service.userapi.model.UserUpdatedEvent;
+import com.service.userapi.payload.BulkRegisterResult;
 import com.service.userapi.payload.RegisterRequest;
+import com.service.userapi.payload.UserPage;
 import com.service.userapi.payload.UpdateUserRequest;
+import com.service.userapi.repository.UserIndexInitializer;
 import com.service.userapi.repository.UserRepository;
-import com.service.userapi.outbox.OutboxEventRepository;
+import com.service.userapi.security.OffloadingPasswordEncoder;
 import com.service.userapi.outbox.OutboxEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.userapi.outbox.OutboxEventWriter;
 import com.fasterxml.jackson.core.JsonProcessingException; // Import for exception handling
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList; // Import for bulk outbox save
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 @Service
@@ -35,8 +53,11 @@ public class UserService  {
 
     private final PasswordEncoder passwordEncoder;
     private final UserRepository userRepository;
-    private final OutboxEventRepository outboxEventRepository;
-    private final ObjectMapper objectMapper;
+    private final OutboxEventWriter outboxEventWriter;
+    private final Validator validator;
+    private final UserIndexInitializer userIndexes;
+    private final UserAvailabilityIndex availabilityIndex;
+    private final TransactionTemplate transactionTemplate;
 
     // Injects the value from "kafka.topic.user-created" in your .yml
     @Value("${kafka.topic.user-created}")
@@ -50,13 +71,23 @@ public class UserService  {
     @Value("${kafka.topic.user-updated}")
     private String userUpdatedTopic;
 
+    @Value("${users.listing.default-page-size:100}")
+    private int defaultPageSize;
+
+    @Value("${users.listing.max-page-size:1000}")
+    private int maxPageSize;
+
     public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
-                       OutboxEventRepository outboxEventRepository,
-                       ObjectMapper objectMapper) {
+                       OutboxEventWriter outboxEventWriter, Validator validator,
+                       UserIndexInitializer userIndexes, UserAvailabilityIndex availabilityIndex,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
-        this.outboxEventRepository = outboxEventRepository;
-        this.objectMapper = objectMapper;
+        this.outboxEventWriter = outboxEventWriter;
+        this.validator = validator;
+        this.userIndexes = userIndexes;
+        this.availabilityIndex = availabilityIndex;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
@@ -66,13 +97,8 @@ public class UserService  {
     public User createUser(RegisterRequest registerRequest) throws UserAlreadyExistsException {
         logger.info("Creating user with username: {}", registerRequest.getUsername());
 
-        // Check if username or email already exists
-        userRepository.findByUsername(registerRequest.getUsername()).ifPresent(u -> {
-            throw new UserAlreadyExistsException("Username already exists: " + registerRequest.getUsername());
-        });
-        userRepository.findByEmail(registerRequest.getEmail()).ifPresent(u -> {
-            throw new UserAlreadyExistsException("Email already exists: " + registerRequest.getEmail());
-        });
+        // The unique indexes reject duplicates on insert; only look them up without them
+        checkNotTaken(registerRequest);
 
         // --- MAPPING LOGIC ---
         // Map from the safe DTO to the database User entity
@@ -88,7 +114,7 @@ public class UserService  {
 
         try {
             // 1. Save user to MongoDB
-            User savedUser = userRepository.save(user);
+            User savedUser = insertUser(user);
             logger.info("User created successfully with id: {}", savedUser.getId());
 
             // 2. Create the event payload
@@ -101,12 +127,7 @@ public class UserService  {
             );
 
             // 3. Create and save the outbox event
-            OutboxEvent outboxEvent = new OutboxEvent(
-                    userCreatedTopic,
-                    savedUser.getId(),
-                    objectMapper.writeValueAsString(eventPayload)
-            );
-            outboxEventRepository.save(outboxEvent);
+            outboxEventWriter.save(userCreatedTopic, savedUser.getId(), eventPayload);
             logger.info("Saved outbox event for user creation: {}", savedUser.getId());
 
             return savedUser;
@@ -117,6 +138,177 @@ public class UserService  {
         }
     }
 
+    /**
+     * Registers many regular users at once, with the per-user round trips of
+     * createUser() batched:
+     * - duplicates are checked with one $in query per field (plus within the batch itself),
+     * - passwords are hashed as bulk work on the PasswordHashingExecutor,
+     * - users are inserted with one insertMany and their UserCreatedEvents with one outbox saveAll.
+     *
+     * Only the two writes share a transaction. Validation, the duplicate checks and the
+     * hashing (seconds of CPU for a large batch) run before it starts, so the transaction
+     * stays short and well within MongoDB's transaction lifetime.
+     *
+     * Invalid and duplicate entries are skipped and reported; they do not fail the rest.
+     *
+     * @param requests The users to register; each gets a result at the same index.
+     * @return One result per request, in request order.
+     */
+    public List<BulkRegisterResult> createUsers(List<RegisterRequest> requests) {
+        logger.info("Bulk creating {} users", requests.size());
+        BulkRegisterResult[] results = new BulkRegisterResult[requests.size()];
+
+        // 1. Validate each entry and drop duplicates within the batch
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            String violations = request == null ? "User is required" : validator.validate(request).stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+            if (!violations.isEmpty()) {
+                results[i] = BulkRegisterResult.invalid(i, violations);
+            } else if (usernames.contains(request.getUsername())) {
+                results[i] = BulkRegisterResult.duplicate(i, "Username appears more than once in the request: " + request.getUsername());
+            } else if (emails.contains(request.getEmail())) {
+                results[i] = BulkRegisterResult.duplicate(i, "Email appears more than once in the request: " + request.getEmail());
+            } else {
+                usernames.add(request.getUsername());
+                emails.add(request.getEmail());
+                candidates.add(i);
+            }
+        }
+
+        // 2. Check the remaining entries against existing users, one query per field
+        Set<String> takenUsernames = candidates.isEmpty() ? Set.of() : userRepository.findUsernamesIn(usernames).stream()
+                .map(User::getUsername)
+                .collect(Collectors.toSet());
+        Set<String> takenEmails = candidates.isEmpty() ? Set.of() : userRepository.findEmailsIn(emails).stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
+        List<Integer> accepted = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            RegisterRequest request = requests.get(i);
+            if (takenUsernames.contains(request.getUsername())) {
+                results[i] = BulkRegisterResult.duplicate(i, "Username already exists: " + request.getUsername());
+            } else if (takenEmails.contains(request.getEmail())) {
+                results[i] = BulkRegisterResult.duplicate(i, "Email already exists: " + request.getEmail());
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            // 3. Hash and map; BCrypt dominates the cost of a registration
+            List<String> passwords = hashPasswords(accepted.stream().map(i -> requests.get(i).getPassword()).toList());
+            List<User> users = new ArrayList<>(accepted.size());
+            for (int n = 0; n < accepted.size(); n++) {
+                users.add(newUser(requests.get(accepted.get(n)), passwords.get(n)));
+            }
+
+            List<OutboxEvent> events = new ArrayList<>(users.size());
+            try {
+                for (User user : users) {
+                    UserCreatedEvent event = new UserCreatedEvent(
+                            user.getId(),
+                            user.getUsername(),
+                            user.getEmail(),
+                            user.getFirstName(),
+                            user.getLastName()
+                    );
+                    events.add(outboxEventWriter.toOutboxEvent(userCreatedTopic, user.getId(), event));
+                }
+            } catch (JsonProcessingException e) {
+                logger.error("Failed to serialize UserCreatedEvents, aborting bulk creation", e);
+                throw new RuntimeException("Bulk user creation failed due to event serialization error", e);
+            }
+
+            // 4. Save all users and their outbox events, one batch each, atomically
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    userRepository.insert(users);
+                } catch (DuplicateKeyException e) {
+                    // Taken by a concurrent registration since the check above
+                    throw new UserAlreadyExistsException(alreadyExistsMessage(e, null, null)
+                            + "; a user in this request was registered concurrently, retry the request");
+                }
+                outboxEventWriter.saveAll(events);
+            });
+            users.forEach(user -> availabilityIndex.recordUser(user.getUsername(), user.getEmail()));
+
+            for (int n = 0; n < accepted.size(); n++) {
+                int i = accepted.get(n);
+                results[i] = BulkRegisterResult.created(i, users.get(n).getId());
+            }
+        }
+
+        logger.info("Bulk created {} of {} users.", accepted.size(), requests.size());
+        return List.of(results);
+    }
+
+    /**
+     * Inserts a new user in one round trip; a username or email collision comes back
+     * from the unique indexes as a UserAlreadyExistsException naming the field.
+     */
+    private User insertUser(User user) {
+        try {
+            User savedUser = userRepository.insert(user);
+            availabilityIndex.recordUser(savedUser.getUsername(), savedUser.getEmail());
+            return savedUser;
+        } catch (DuplicateKeyException e) {
+            throw new UserAlreadyExistsException(alreadyExistsMessage(e, user.getUsername(), user.getEmail()));
+        }
+    }
+
+    // Only needed while the unique indexes are not (yet) in place
+    private void checkNotTaken(RegisterRequest registerRequest) {
+        if (userIndexes.isUniqueIndexesReady()) {
+            return;
+        }
+        userRepository.findByUsername(registerRequest.getUsername()).ifPresent(u -> {
+            throw new UserAlreadyExistsException("Username already exists: " + registerRequest.getUsername());
+        });
+        userRepository.findByEmail(registerRequest.getEmail()).ifPresent(u -> {
+            throw new UserAlreadyExistsException("Email already exists: " + registerRequest.getEmail());
+        });
+    }
+
+    private static String alreadyExistsMessage(DuplicateKeyException e, String username, String email) {
+        String index = UserIndexInitializer.collidingIndex(e);
+        if (UserIndexInitializer.USERNAME_INDEX.equals(index)) {
+            return username != null ? "Username already exists: " + username : "Username already exists";
+        }
+        if (UserIndexInitializer.EMAIL_INDEX.equals(index)) {
+            return email != null ? "Email already exists: " + email : "Email already exists";
+        }
+        return "User already exists";
+    }
+
+    /**
+     * Hashes a batch of passwords, in order. The offloading encoder runs them under its
+     * bulk cap so logins keep hashing threads; any other encoder hashes on this thread.
+     */
+    private List<String> hashPasswords(List<String> rawPasswords) {
+        if (passwordEncoder instanceof OffloadingPasswordEncoder offloadingEncoder) {
+            return offloadingEncoder.encodeAll(rawPasswords);
+        }
+        return rawPasswords.stream().map(passwordEncoder::encode).toList();
+    }
+
+    private User newUser(RegisterRequest registerRequest, String encodedPassword) {
+        User user = new User();
+        user.setId(UUID.randomUUID().toString());
+        user.setUsername(registerRequest.getUsername());
+        user.setEmail(registerRequest.getEmail());
+        user.setFirstName(registerRequest.getFirstName());
+        user.setLastName(registerRequest.getLastName());
+        user.setPassword(encodedPassword);
+        user.setRoles(Set.of(RoleName.ROLE_USER.name()));
+        return user;
+    }
+
     /**
      * Updates an existing user and creates a corresponding outbox event
      * in a single atomic transaction.
@@ -166,7 +358,14 @@ public class UserService  {
 
         try {
             // 4. Save the updated user
-            User updatedUser = userRepository.save(user);
+            User updatedUser;
+            try {
+                updatedUser = userRepository.save(user);
+            } catch (DuplicateKeyException e) {
+                // Lost a race with another user taking the same username or email
+                throw new UserAlreadyExistsException(alreadyExistsMessage(e, user.getUsername(), user.getEmail()));
+            }
+            availabilityIndex.recordUser(updatedUser.getUsername(), updatedUser.getEmail());
             logger.info("User updated successfully with id: {}", updatedUser.getId());
 
             // 5. Create the event payload
@@ -179,12 +378,7 @@ public class UserService  {
             );
 
             // 6. Create and save the outbox event
-            OutboxEvent outboxEvent = new OutboxEvent(
-                    userUpdatedTopic,
-                    updatedUser.getId(),
-                    objectMapper.writeValueAsString(eventPayload)
-            );
-            outboxEventRepository.save(outboxEvent);
+            outboxEventWriter.save(userUpdatedTopic, updatedUser.getId(), eventPayload);
             logger.info("Saved outbox event for user update: {}", updatedUser.getId());
 
             return updatedUser;
@@ -201,12 +395,7 @@ public class UserService  {
     @Transactional
     public User createAdminUser(RegisterRequest registerRequest) {
         logger.info("Creating ADMIN user with username: {}", registerRequest.getUsername());
-        if (userRepository.findByUsername(registerRequest.getUsername()).isPresent()) {
-            throw new UserAlreadyExistsException("Username already exists: " + registerRequest.getUsername());
-        }
-        if (userRepository.findByEmail(registerRequest.getEmail()).isPresent()) {
-            throw new UserAlreadyExistsException("Email already exists: " + registerRequest.getEmail());
-        }
+        checkNotTaken(registerRequest);
 
         // --- MAPPING LOGIC ---
         User user = new User();
@@ -221,7 +410,7 @@ public class UserService  {
         // ---------------------
 
         try {
-            User savedUser = userRepository.save(user);
+            User savedUser = insertUser(user);
             logger.info("Admin User created successfully with id: {}", savedUser.getId());
 
             UserCreatedEvent event = new UserCreatedEvent(
@@ -232,12 +421,7 @@ public class UserService  {
                     savedUser.getLastName()
             );
 
-            OutboxEvent outboxEvent = new OutboxEvent(
-                    userCreatedTopic,
-                    savedUser.getId(),
-                    objectMapper.writeValueAsString(event)
-            );
-            outboxEventRepository.save(outboxEvent);
+            outboxEventWriter.save(userCreatedTopic, savedUser.getId(), event);
             logger.info("Saved outbox event for admin user creation: {}", savedUser.getId());
 
             return savedUser;
@@ -267,12 +451,7 @@ public class UserService  {
             UserDeletedEvent event = new UserDeletedEvent(userId);
 
             // 3. Create and save the outbox event
-            OutboxEvent outboxEvent = new OutboxEvent(
-                    userDeletedTopic,
-                    userId,
-                    objectMapper.writeValueAsString(event)
-            );
-            outboxEventRepository.save(outboxEvent);
+            outboxEventWriter.save(userDeletedTopic, userId, event);
             logger.info("Saved outbox event for user deletion: {}", userId);
 
         } catch (JsonProcessingException e) {
@@ -314,6 +493,8 @@ public class UserService  {
 
     /**
      * Deletes all users and creates corresponding outbox events in a single atomic transaction.
+     * The UserDeletedEvents are packed into EventEnvelopes, so a bulk delete costs one outbox
+     * document and one Kafka record per envelope rather than per user.
      */
     @Transactional
     public long deleteAllUsers() {
@@ -332,22 +513,19 @@ public class UserService  {
             // 2. Delete all users from the database
             userRepository.deleteAll();
 
-            // 3. Create a list of outbox events for every user that was deleted
-            List<OutboxEvent> deleteEvents = new ArrayList<>();
+            // 3. Create a delete event for every user that was deleted
+            List<UserDeletedEvent> deleteEvents = new ArrayList<>(allUsers.size());
             for (User user : allUsers) {
-                UserDeletedEvent event = new UserDeletedEvent(user.getId());
-                OutboxEvent outboxEvent = new OutboxEvent(
-                        userDeletedTopic,
-                        user.getId(),
-                        objectMapper.writeValueAsString(event)
-                );
-                deleteEvents.add(outboxEvent);
+                deleteEvents.add(new UserDeletedEvent(user.getId()));
             }
 
-            // 4. Save all outbox events in a single batch operation
-            outboxEventRepository.saveAll(deleteEvents);
+            // 4. Pack them into envelopes and save those in a single batch operation
+            List<OutboxEvent> envelopes = outboxEventWriter.toEnvelopes(
+                    userDeletedTopic, UserDeletedEvent.class.getSimpleName(), deleteEvents, UserDeletedEvent::getUserId);
+            outboxEventWriter.saveAll(envelopes);
 
-            logger.info("Successfully deleted {} users and published {} delete events to outbox.", userCount, userCount);
+            logger.info("Successfully deleted {} users and published their delete events to outbox in {} envelopes.",
+                    userCount, envelopes.size());
             return userCount;
 
         } catch (JsonProcessingException e) {
@@ -366,11 +544,79 @@ public class UserService  {
                 .orElseThrow(() -> new UserNotFoundException("User not found with id: " + id));
     }
 
-    public List<User> getAllUsers() {
-        logger.info("Fetching all users");
-        return userRepository.findAll();
+    /**
+     * Lists users one page at a time, in _id order. Each page is a single indexed
+     * range query from where the previous one ended, so deep pages cost the same as
+     * the first and users added or removed meanwhile never shift the pages.
+     *
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit  The page size; defaults to users.listing.default-page-size and
+     *               is capped at users.listing.max-page-size.
+     */
+    public UserPage getUsers(String cursor, Integer limit) {
+        int pageSize = limit == null ? defaultPageSize : limit;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new BadRequestException("limit must be between 1 and " + maxPageSize);
+        }
+        logger.info("Fetching a page of {} users", pageSize);
+
+        // One extra user tells whether there is a next page
+        Limit fetch = Limit.of(pageSize + 1);
+        List<User> users = cursor == null
+                ? userRepository.findAllByOrderByIdAsc(fetch)
+                : userRepository.findByIdGreaterThanOrderByIdAsc(decodeCursor(cursor), fetch);
+        if (users.size() <= pageSize) {
+            return new UserPage(users, null);
+        }
+        List<User> page = users.subList(0, pageSize);
+        return new UserPage(page, encodeCursor(page.get(pageSize - 1).getId()));
     }
 
+    /**
+     * Hands every user to the action in _id order, straight from a Mongo cursor, so
+     * only one fetch batch is held in memory however many users there are.
+     */
+    public void streamUsers(Consumer<User> action) {
+        logger.info("Streaming all users");
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            users.forEach(action);
+        }
+    }
+
+    // The cursor is opaque to clients so the paging key can change without breaking them
+    private static String encodeCursor(String lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(lastId.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+
+
+    /**
+     * Checks whether a username and/or email is still free, for signup forms. Mostly
+     * answered from memory by the UserAvailabilityIndex; free means free right now,
+     * registration itself still enforces uniqueness.
+     *
+     * @return Availability per requested field, keyed "username" and/or "email".
+     */
+    public Map<String, Boolean> checkAvailability(String username, String email) {
+        if (username == null && email == null) {
+            throw new BadRequestException("A parameter (username or email) is required.");
+        }
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", availabilityIndex.isUsernameAvailable(username));
+        }
+        if (email != null) {
+            availability.put("email", availabilityIndex.isEmailAvailable(email));
+        }
+        return availability;
+    }
 
     public User findUser(String username, String email) {
         if (username != null) {
@@ -0,0 +1,98 @@
+package com.service.userapi.availability;
+
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.service.userapi.model.User;
+import com.service.userapi.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserAvailabilityIndexTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final UserAvailabilityIndex index =
+            new UserAvailabilityIndex(mongoTemplate, userRepository, new SimpleMeterRegistry());
+
+    UserAvailabilityIndexTest() {
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "expectedUsers", 1000L);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void answersDefiniteMissesFromMemoryAndPossibleHitsFromMongo() {
+        when(mongoTemplate.stream(any(Query.class), eq(User.class)))
+                .thenReturn(Stream.of(new User("alice", "alice@example.com", "Alice", "Lee")));
+        when(userRepository.existsByUsername("alice")).thenReturn(true);
+        index.onWatchOpened(false);
+        index.rebuild();
+
+        assertTrue(index.isUsernameAvailable("bob"));
+        verify(userRepository, never()).existsByUsername(anyString());
+
+        assertFalse(index.isUsernameAvailable("alice"));
+        verify(userRepository).existsByUsername("alice");
+
+        // Users created after the build are possible hits straight away
+        index.recordUser("carol", "carol@example.com");
+        when(userRepository.existsByEmail("carol@example.com")).thenReturn(true);
+        assertFalse(index.isEmailAvailable("carol@example.com"));
+        verify(userRepository).existsByEmail("carol@example.com");
+    }
+
+    @Test
+    void trustsTheFiltersOnlyWhileTheChangeStreamCoversTheirBuild() {
+        when(mongoTemplate.stream(any(Query.class), eq(User.class))).thenAnswer(call -> Stream.empty());
+
+        // Built before any change stream: users from other replicas may be missing
+        index.rebuild();
+        index.onWatchOpened(false);
+        assertTrue(index.isUsernameAvailable("bob"));
+        verify(userRepository, times(1)).existsByUsername("bob");
+
+        // Rebuilt while watching: misses are answered from memory
+        index.rebuild();
+        assertTrue(index.isUsernameAvailable("bob"));
+        verify(userRepository, times(1)).existsByUsername("bob");
+
+        // A user registered on another replica arrives through the change stream
+        index.onChange(insertOf(new User("dave", "dave@example.com", "Dave", "Kim")));
+        when(userRepository.existsByUsername("dave")).thenReturn(true);
+        assertFalse(index.isUsernameAvailable("dave"));
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndFewFalsePositives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        IntStream.range(0, 10_000).forEach(i -> filter.put("user-" + i));
+
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user-" + i)));
+        long falsePositives = IntStream.range(0, 10_000).filter(i -> filter.mightContain("other-" + i)).count();
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> insertOf(User user) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getFullDocument()).thenReturn(new Document("username", user.getUsername()).append("email", user.getEmail()));
+        return change;
+    }
+}
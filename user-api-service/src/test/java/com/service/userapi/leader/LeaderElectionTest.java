@@ -0,0 +1,58 @@
+package com.service.userapi.leader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeaderElectionTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    @Test
+    void becomesLeaderWithTheLeaseFencingTokenAndStepsDownWhenRenewalFails() {
+        LeaderElection election = election(true);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(LeaderLease.class)))
+                .thenReturn(lease(7))                                  // acquired
+                .thenReturn(null)                                      // renewal: lease taken over
+                .thenThrow(new DuplicateKeyException("held by another instance"));
+
+        assertFalse(election.isLeader());
+
+        election.heartbeat();
+        assertTrue(election.isLeader());
+        assertEquals(7, election.fencingToken());
+
+        election.heartbeat();
+        assertFalse(election.isLeader());
+    }
+
+    @Test
+    void everyInstanceIsLeaderWhenDisabled() {
+        LeaderElection election = election(false);
+
+        assertTrue(election.isLeader());
+        assertTrue(election.confirmLeadership());
+    }
+
+    private LeaderElection election(boolean enabled) {
+        return new LeaderElection(mongoTemplate, new SimpleMeterRegistry(), enabled, "test", "host", 10_000, 2_000, 1_000);
+    }
+
+    private static LeaderLease lease(long fencingToken) {
+        LeaderLease lease = new LeaderLease();
+        lease.setFencingToken(fencingToken);
+        return lease;
+    }
+}
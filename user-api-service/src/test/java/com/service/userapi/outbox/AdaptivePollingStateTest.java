@@ -0,0 +1,66 @@
+package com.service.userapi.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AdaptivePollingStateTest {
+
+    private final AdaptivePollingState state = new AdaptivePollingState(10, 50, 1000, 5000);
+
+    @Test
+    void doublesTheBatchAndPollsAgainAtOnceWhileBatchesComeBackFull() {
+        assertEquals(10, state.batchSize());
+        assertEquals(1000, state.nextDelayMs());
+
+        state.onPollCompleted(10);
+        assertEquals(20, state.batchSize());
+        assertEquals(0, state.nextDelayMs());
+
+        state.onPollCompleted(20);
+        state.onPollCompleted(40);
+        // Capped at the maximum batch size
+        assertEquals(50, state.batchSize());
+        assertEquals(0, state.nextDelayMs());
+    }
+
+    @Test
+    void keepsTheBatchAndWaitsTheBaseDelayOnAPartialBatch() {
+        state.onPollCompleted(10);
+        state.onPollCompleted(5);
+
+        assertEquals(20, state.batchSize());
+        assertEquals(1000, state.nextDelayMs());
+    }
+
+    @Test
+    void shrinksTheBatchAndBacksOffExponentiallyWhenIdle() {
+        state.onPollCompleted(10);
+        state.onPollCompleted(20);
+
+        state.onPollCompleted(0);
+        assertEquals(10, state.batchSize());
+        assertEquals(1000, state.nextDelayMs());
+
+        state.onPollCompleted(0);
+        assertEquals(2000, state.nextDelayMs());
+        state.onPollFailed();
+        assertEquals(4000, state.nextDelayMs());
+        // Capped at max-idle-delay-ms
+        state.onPollCompleted(0);
+        assertEquals(5000, state.nextDelayMs());
+        state.onPollCompleted(0);
+        assertEquals(5000, state.nextDelayMs());
+
+        // A backlog shows up again: straight back to immediate polling
+        state.onPollCompleted(10);
+        assertEquals(0, state.nextDelayMs());
+    }
+
+    @Test
+    void rejectsInconsistentBatchSizes() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePollingState(0, 10, 1000, 5000));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptivePollingState(20, 10, 1000, 5000));
+    }
+}
@@ -0,0 +1,154 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.outbox.deadletter.DeadLetterService;
+import com.service.userapi.service.KafkaProducerService;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EventProcessingServiceTest {
+
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final OutboxCollections collections = mock(OutboxCollections.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final EventProcessingService service = new EventProcessingService(kafkaProducerService, collections,
+            mock(DeadLetterService.class), new OutboxEventCoalescer(false, 2000, "user-updated-events", "user-deleted-events"),
+            mongoTemplate, mock(OutboxMetrics.class), new OutboxRetryPolicy(8, 1000, 300_000));
+
+    EventProcessingServiceTest() {
+        when(collections.of(any(OutboxEvent.class)))
+                .thenAnswer(invocation -> invocation.<OutboxEvent>getArgument(0).getCollectionName());
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(OutboxEvent.class), anyString()))
+                .thenReturn(mock(BulkOperations.class));
+        ReflectionTestUtils.setField(service, "ackTimeoutMs", 500L);
+        ReflectionTestUtils.setField(service, "cleanupMode", "delete");
+    }
+
+    @Test
+    void sendsTheWholeBatchBeforeAwaitingAnyAcknowledgement() {
+        List<OutboxEvent> events = List.of(event("event-1", "outbox_events"), event("event-2", "outbox_events"),
+                event("event-3", "outbox_events"));
+        // The broker only acks once every record has been sent; awaiting each send in turn would time out
+        List<CompletableFuture<SendResult<String, byte[]>>> sends = new ArrayList<>();
+        when(kafkaProducerService.publish(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            CompletableFuture<SendResult<String, byte[]>> future = new CompletableFuture<>();
+            sends.add(future);
+            if (sends.size() == events.size()) {
+                sends.forEach(sent -> sent.complete(null));
+            }
+            return future;
+        });
+
+        assertEquals(3, service.publishBatch(events));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq("outbox_events"));
+        assertEquals(ids("event-1", "event-2", "event-3"), removed.getValue().getQueryObject());
+    }
+
+    @Test
+    void acknowledgesOnlyTheAckedEventsAndSchedulesTheRestForRetry() {
+        OutboxEvent acked = event("event-1", "outbox_events");
+        OutboxEvent failed = event("event-2", "outbox_events");
+        when(kafkaProducerService.publish(acked)).thenReturn(CompletableFuture.completedFuture(null));
+        when(kafkaProducerService.publish(failed))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("Broker unavailable")));
+
+        assertEquals(1, service.publishBatch(List.of(acked, failed)));
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq("outbox_events"));
+        assertEquals(ids("event-1"), removed.getValue().getQueryObject());
+        assertEquals(1, failed.getAttempts());
+        assertEquals("Broker unavailable", failed.getLastError());
+    }
+
+    @Test
+    void publishesTheBatchInOneKafkaTransactionInTransactionalMode() {
+        List<OutboxEvent> events = List.of(event("event-1", "outbox_events"), event("event-2", "outbox_events"));
+        when(kafkaProducerService.isTransactional()).thenReturn(true);
+        when(kafkaProducerService.publishInTransaction(events)).thenReturn(
+                List.of(CompletableFuture.completedFuture(null), CompletableFuture.completedFuture(null)));
+
+        assertEquals(2, service.publishBatch(events));
+
+        verify(kafkaProducerService).publishInTransaction(events);
+        verify(kafkaProducerService, never()).publish(any(OutboxEvent.class));
+    }
+
+    @Test
+    void retriesEachEventInItsOwnTransactionWhenTheBatchTransactionAborts() {
+        OutboxEvent good = event("event-1", "outbox_events");
+        OutboxEvent bad = event("event-2", "outbox_events");
+        when(kafkaProducerService.isTransactional()).thenReturn(true);
+        when(kafkaProducerService.publishInTransaction(List.of(good, bad)))
+                .thenThrow(new IllegalStateException("Transaction aborted"));
+        when(kafkaProducerService.publishInTransaction(List.of(good)))
+                .thenReturn(List.of(CompletableFuture.completedFuture(null)));
+        when(kafkaProducerService.publishInTransaction(List.of(bad)))
+                .thenThrow(new IllegalStateException("Record too large"));
+
+        assertEquals(1, service.publishBatch(List.of(good, bad)));
+
+        assertEquals(1, bad.getAttempts());
+        assertEquals("Record too large", bad.getLastError());
+    }
+
+    @Test
+    void removesAcknowledgedEventsWithOneDeletePerCollection() {
+        service.acknowledge(List.of(event("event-1", "outbox_events"), event("event-2", "outbox_events")));
+
+        verify(mongoTemplate).remove(any(Query.class), eq("outbox_events"));
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), anyString());
+    }
+
+    @Test
+    void marksAcknowledgedEventsPublishedWithOneUpdatePerCollectionInTtlMode() {
+        ReflectionTestUtils.setField(service, "cleanupMode", "ttl");
+
+        service.acknowledge(List.of(event("event-1", "outbox_events_1"), event("event-2", "outbox_events_2"),
+                event("event-3", "outbox_events_1")));
+
+        ArgumentCaptor<Query> marked = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(marked.capture(), update.capture(), eq("outbox_events_1"));
+        assertEquals(ids("event-1", "event-3"), marked.getValue().getQueryObject());
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq("outbox_events_2"));
+        verify(mongoTemplate, never()).remove(any(Query.class), anyString());
+
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertEquals(OutboxEvent.EventStatus.PUBLISHED, set.get("status"));
+        assertNotNull(set.get("publishedAt"));
+    }
+
+    private static OutboxEvent event(String id, String collection) {
+        OutboxEvent event = new OutboxEvent("user-created-events", "user-" + id, new byte[0]);
+        event.setId(id);
+        event.setCollectionName(collection);
+        return event;
+    }
+
+    private static Document ids(String... ids) {
+        return new Document("_id", new Document("$in", List.of(ids)));
+    }
+}
@@ -0,0 +1,63 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxAdmissionControlTest {
+
+    private final OutboxMetrics metrics = mock(OutboxMetrics.class);
+    private final OutboxAdmissionControl admissionControl = new OutboxAdmissionControl(metrics, new SimpleMeterRegistry());
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(admissionControl, "enabled", true);
+        ReflectionTestUtils.setField(admissionControl, "softDepth", 100L);
+        ReflectionTestUtils.setField(admissionControl, "hardDepth", 1000L);
+        ReflectionTestUtils.setField(admissionControl, "softAgeMs", 10_000L);
+        ReflectionTestUtils.setField(admissionControl, "hardAgeMs", 60_000L);
+        ReflectionTestUtils.setField(admissionControl, "maxDelayMs", 0L);
+        ReflectionTestUtils.setField(admissionControl, "retryAfterSeconds", 30L);
+    }
+
+    @Test
+    void admitsEverythingBelowSoftLimits() {
+        backlog(99, Duration.ofSeconds(5));
+
+        assertDoesNotThrow(() -> admissionControl.admit(OutboxAdmissionControl.Priority.LOW));
+        assertDoesNotThrow(() -> admissionControl.admit(OutboxAdmissionControl.Priority.NORMAL));
+    }
+
+    @Test
+    void shedsLowPriorityAboveSoftLimit() {
+        backlog(500, Duration.ZERO);
+
+        assertThrows(ServiceUnavailableException.class,
+                () -> admissionControl.admit(OutboxAdmissionControl.Priority.LOW));
+        assertDoesNotThrow(() -> admissionControl.admit(OutboxAdmissionControl.Priority.NORMAL));
+    }
+
+    @Test
+    void rejectsEverythingWhenOldestEventIsTooOld() {
+        backlog(1, Duration.ofMinutes(2));
+
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class,
+                () -> admissionControl.admit(OutboxAdmissionControl.Priority.NORMAL));
+        assertEquals(30, ex.getRetryAfterSeconds());
+    }
+
+    private void backlog(long depth, Duration oldestAge) {
+        when(metrics.getPendingCount()).thenReturn(depth);
+        when(metrics.getOldestPendingAge()).thenReturn(oldestAge);
+    }
+}
@@ -0,0 +1,68 @@
+package com.service.userapi.outbox;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.service.userapi.leader.LeaderElection;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxChangeStreamRelayTest {
+
+    private final OutboxEventClaimService claimService = mock(OutboxEventClaimService.class);
+    private final EventProcessingService eventProcessingService = mock(EventProcessingService.class);
+    private final LeaderElection leaderElection = mock(LeaderElection.class);
+    private final OutboxChangeStreamRelay relay;
+
+    OutboxChangeStreamRelayTest() {
+        when(claimService.ownerId(anyString())).thenReturn("test/change-stream");
+        relay = new OutboxChangeStreamRelay(mock(MongoTemplate.class), eventProcessingService,
+                mock(OutboxRelayCheckpointRepository.class), claimService, mock(OutboxCollections.class),
+                leaderElection, new KafkaCircuitBreaker(20, 30_000, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void publishesOnlyEventsItManagedToClaim() {
+        when(leaderElection.isLeader()).thenReturn(true);
+        OutboxEvent claimed = new OutboxEvent("user-created-events", "user-1", new byte[0]);
+        when(claimService.claimById("test/change-stream", "event-1", "outbox_events")).thenReturn(claimed);
+
+        assertTrue(relay.relay(insertOf("event-1")));
+        assertTrue(relay.relay(insertOf("event-2")));
+
+        // event-2 was leased elsewhere (e.g. by the dispatcher), so only event-1 goes out
+        verify(eventProcessingService).publishBatch(List.of(claimed));
+        verify(eventProcessingService).publishBatch(any());
+    }
+
+    @Test
+    void leavesEventsAloneOnceLeadershipIsLost() {
+        when(leaderElection.isLeader()).thenReturn(false);
+
+        assertTrue(relay.relay(insertOf("event-1")));
+
+        verify(claimService, never()).claimById(anyString(), eq("event-1"), anyString());
+        verify(eventProcessingService, never()).publishBatch(any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> insertOf(String eventId) {
+        ChangeStreamDocument<Document> change = mock(ChangeStreamDocument.class);
+        when(change.getFullDocument()).thenReturn(new Document("_id", eventId));
+        when(change.getNamespace()).thenReturn(new MongoNamespace("users", "outbox_events"));
+        return change;
+    }
+}
@@ -0,0 +1,45 @@
+package com.service.userapi.outbox;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxCollectionsTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+
+    OutboxCollectionsTest() {
+        when(mongoTemplate.getCollectionName(OutboxEvent.class)).thenReturn("outbox_events");
+    }
+
+    @Test
+    void namesBucketsByTheirUtcStart() {
+        OutboxCollections collections = new OutboxCollections(mongoTemplate, null, "bucketed", 15);
+
+        assertEquals("outbox_events_20250101_1300", collections.bucketName(Instant.parse("2025-01-01T13:00:00Z")));
+        assertEquals("outbox_events_20250101_1300", collections.bucketName(Instant.parse("2025-01-01T13:14:59.999Z")));
+        assertEquals("outbox_events_20250101_1315", collections.bucketName(Instant.parse("2025-01-01T13:15:00Z")));
+    }
+
+    @Test
+    void singleModeUsesTheBaseCollectionOnly() {
+        OutboxCollections collections = new OutboxCollections(mongoTemplate, null, "single", 60);
+        OutboxEvent event = new OutboxEvent("user-created-events", "user-1", new byte[0]);
+
+        assertEquals("outbox_events", collections.forWrite(Instant.now()));
+        assertEquals(List.of("outbox_events"), collections.forRead());
+        assertEquals("outbox_events", collections.of(event));
+        collections.maintainBuckets();
+        verify(mongoTemplate, never()).getCollectionNames();
+        verify(mongoTemplate, never()).createCollection(anyString());
+    }
+}
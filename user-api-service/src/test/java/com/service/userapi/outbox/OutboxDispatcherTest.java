@@ -0,0 +1,87 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.service.KafkaCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxDispatcherTest {
+
+    private static final int KEYS = 8;
+    private static final int EVENTS_PER_KEY = 25;
+
+    @Test
+    void publishesEachKeysEventsInTimestampOrder() throws Exception {
+        List<OutboxEvent> backlog = new ArrayList<>();
+        for (int i = 0; i < EVENTS_PER_KEY; i++) {
+            for (int k = 0; k < KEYS; k++) {
+                OutboxEvent event = new OutboxEvent("user-updated-events", "user-" + k,
+                        String.valueOf(i).getBytes(StandardCharsets.UTF_8));
+                event.setLockedUntil(Instant.now().plusSeconds(60));
+                backlog.add(event);
+            }
+        }
+
+        OutboxEventClaimService claimService = mock(OutboxEventClaimService.class);
+        when(claimService.ownerId(anyString())).thenReturn("test/dispatcher");
+        AtomicBoolean claimed = new AtomicBoolean();
+        when(claimService.claimBatch(anyString(), anyInt(), any(Instant.class)))
+                .thenAnswer(invocation -> claimed.getAndSet(true) ? List.of() : backlog);
+
+        Map<String, List<Integer>> published = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(backlog.size());
+        EventProcessingService eventProcessingService = mock(EventProcessingService.class);
+        when(eventProcessingService.publishBatch(any())).thenAnswer(invocation -> {
+            List<OutboxEvent> batch = invocation.getArgument(0);
+            for (OutboxEvent event : batch) {
+                published.computeIfAbsent(event.getKey(), key -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(Integer.parseInt(new String(event.getPayload(), StandardCharsets.UTF_8)));
+                done.countDown();
+            }
+            return batch.size();
+        });
+
+        KafkaCircuitBreaker circuitBreaker = new KafkaCircuitBreaker(20, 30_000, new SimpleMeterRegistry());
+
+        OutboxDispatcher dispatcher = new OutboxDispatcher(claimService, eventProcessingService, circuitBreaker, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(dispatcher, "laneCount", 3);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 7);
+        ReflectionTestUtils.setField(dispatcher, "maxQueued", 1000);
+        ReflectionTestUtils.setField(dispatcher, "idleDelayMs", 10L);
+        ReflectionTestUtils.setField(dispatcher, "maxIdleDelayMs", 10L);
+
+        dispatcher.start();
+        try {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            dispatcher.stop();
+        }
+
+        assertEquals(KEYS, published.size());
+        for (List<Integer> sequence : published.values()) {
+            List<Integer> sorted = new ArrayList<>(sequence);
+            Collections.sort(sorted);
+            assertEquals(sorted, sequence);
+            assertEquals(EVENTS_PER_KEY, sequence.size());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.service.userapi.outbox;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxEventClaimServiceTest {
+
+    private static final String COLLECTION = "outbox_events";
+
+    @Test
+    void claimsAWholeBatchWithOneUpdate() {
+        List<OutboxEvent> due = IntStream.range(0, 5)
+                .mapToObj(i -> event("event-" + i, "user-" + i))
+                .toList();
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        // Serves both the candidate lookup and the read-back by lease token
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION))).thenReturn(due);
+        OutboxCollections collections = mock(OutboxCollections.class);
+        when(collections.forRead()).thenReturn(List.of(COLLECTION));
+
+        OutboxEventClaimService claimService = new OutboxEventClaimService(mongoTemplate, collections, "test");
+        List<OutboxEvent> claimed = claimService.claimBatch("test/dispatcher", 5, Instant.now());
+
+        assertEquals(5, claimed.size());
+        claimed.forEach(event -> assertEquals(COLLECTION, event.getCollectionName()));
+
+        ArgumentCaptor<Update> lease = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateMulti(any(Query.class), lease.capture(),
+                eq(OutboxEvent.class), eq(COLLECTION));
+        String token = lease.getValue().getUpdateObject().get("$set", Document.class).getString("lockedBy");
+        assertTrue(token.startsWith("test/dispatcher#"));
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(), eq(OutboxEvent.class), any(String.class));
+    }
+
+    @Test
+    void skipsKeysWithAnEarlierEventBackingOff() {
+        OutboxEvent retrying = event("event-1", "user-1");
+        retrying.setNextAttemptAt(Instant.now().plusSeconds(60));
+        OutboxEvent behindRetry = event("event-2", "user-1");
+        OutboxEvent otherKey = event("event-3", "user-2");
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        // The pending scan projects a few fields; the read-back by lease token does not
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    return query.getFieldsObject().isEmpty()
+                            ? List.of(otherKey)
+                            : List.of(retrying, behindRetry, otherKey);
+                });
+        OutboxCollections collections = mock(OutboxCollections.class);
+        when(collections.forRead()).thenReturn(List.of(COLLECTION));
+
+        OutboxEventClaimService claimService = new OutboxEventClaimService(mongoTemplate, collections, "test");
+        ReflectionTestUtils.setField(claimService, "scanLimit", 100);
+        List<OutboxEvent> claimed = claimService.claimBatch("test/dispatcher", 10, Instant.now());
+
+        assertEquals(List.of(otherKey), claimed);
+        ArgumentCaptor<Query> leaseQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(leaseQuery.capture(), any(Update.class),
+                eq(OutboxEvent.class), eq(COLLECTION));
+        assertEquals(new Document("$in", List.of("event-3")), leaseQuery.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void neverLetsAnEnvelopeJumpAheadOfAnOlderEventForOneOfItsUsers() {
+        // user-2's update is leased by another worker, user-1's is still claimable
+        OutboxEvent olderUpdate = event("event-1", "user-1");
+        OutboxEvent leasedElsewhere = event("event-2", "user-2");
+        leasedElsewhere.setLockedUntil(Instant.now().plusSeconds(30));
+        OutboxEvent envelope = envelope("envelope-1", "user-1", "user-3");
+        OutboxEvent blockedEnvelope = envelope("envelope-2", "user-2", "user-4");
+        OutboxEvent behindEnvelope = event("event-3", "user-3");
+        OutboxEvent behindBlockedEnvelope = event("event-4", "user-4");
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    return query.getFieldsObject().isEmpty()
+                            ? List.of(olderUpdate)
+                            : List.of(olderUpdate, leasedElsewhere, envelope, blockedEnvelope,
+                                    behindEnvelope, behindBlockedEnvelope);
+                });
+        OutboxCollections collections = mock(OutboxCollections.class);
+        when(collections.forRead()).thenReturn(List.of(COLLECTION));
+
+        OutboxEventClaimService claimService = new OutboxEventClaimService(mongoTemplate, collections, "test");
+        ReflectionTestUtils.setField(claimService, "scanLimit", 100);
+        List<OutboxEvent> claimed = claimService.claimBatch("test/dispatcher", 10, Instant.now());
+
+        // The first envelope waits for user-1's update to be published, the second for
+        // user-2's; the later events of their other users wait for the envelopes
+        assertEquals(List.of(olderUpdate), claimed);
+        ArgumentCaptor<Query> leaseQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(leaseQuery.capture(), any(Update.class),
+                eq(OutboxEvent.class), eq(COLLECTION));
+        assertEquals(new Document("$in", List.of("event-1")), leaseQuery.getValue().getQueryObject().get("_id"));
+    }
+
+    @Test
+    void givesUpAnEnvelopeClaimedByIdWhileOneOfItsUsersHasAnOlderEvent() {
+        OutboxEvent envelope = envelope("envelope-1", "user-1", "user-2");
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(),
+                eq(OutboxEvent.class), eq(COLLECTION))).thenReturn(envelope);
+        when(mongoTemplate.exists(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION))).thenReturn(true);
+        OutboxCollections collections = mock(OutboxCollections.class);
+        when(collections.forRead()).thenReturn(List.of(COLLECTION));
+
+        OutboxEventClaimService claimService = new OutboxEventClaimService(mongoTemplate, collections, "test");
+
+        assertNull(claimService.claimById("test/relay", "envelope-1", COLLECTION));
+        ArgumentCaptor<Query> olderQuery = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).exists(olderQuery.capture(), eq(OutboxEvent.class), eq(COLLECTION));
+        // Matches plain events and other envelopes for either user
+        Document keyClause = (Document) olderQuery.getValue().getQueryObject().getList("$and", Document.class).get(0);
+        assertEquals(List.of(new Document("key", new Document("$in", List.of("user-1", "user-2"))),
+                new Document("keys", new Document("$in", List.of("user-1", "user-2")))),
+                keyClause.getList("$or", Document.class));
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(OutboxEvent.class), eq(COLLECTION));
+    }
+
+    private static OutboxEvent envelope(String id, String... keys) {
+        OutboxEvent event = new OutboxEvent("user-deleted-events", keys[0], new byte[0]);
+        event.setId(id);
+        event.setKeys(List.of(keys));
+        return event;
+    }
+
+    private static OutboxEvent event(String id, String key) {
+        OutboxEvent event = new OutboxEvent("user-updated-events", key, new byte[0]);
+        event.setId(id);
+        return event;
+    }
+}
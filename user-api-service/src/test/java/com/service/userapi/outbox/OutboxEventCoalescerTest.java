@@ -0,0 +1,67 @@
+package com.service.userapi.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class OutboxEventCoalescerTest {
+
+    private static final String CREATED = "user-created-events";
+    private static final String UPDATED = "user-updated-events";
+    private static final String DELETED = "user-deleted-events";
+
+    private final OutboxEventCoalescer coalescer = new OutboxEventCoalescer(true, 2000, UPDATED, DELETED);
+
+    @Test
+    void collapsesUpdatesForSameKeyIntoLatest() {
+        OutboxEvent first = event(UPDATED, "u1", 0);
+        OutboxEvent other = event(UPDATED, "u2", 100);
+        OutboxEvent latest = event(UPDATED, "u1", 200);
+
+        OutboxEventCoalescer.Result result = coalescer.coalesce(List.of(first, other, latest));
+
+        assertEquals(List.of(other, latest), result.getToPublish());
+        assertEquals(List.of(first), result.getSuperseded());
+    }
+
+    @Test
+    void deleteSupersedesEarlierCreateAndUpdates() {
+        OutboxEvent create = event(CREATED, "u1", 0);
+        OutboxEvent update = event(UPDATED, "u1", 100);
+        OutboxEvent delete = event(DELETED, "u1", 200);
+
+        OutboxEventCoalescer.Result result = coalescer.coalesce(List.of(create, update, delete));
+
+        assertEquals(List.of(delete), result.getToPublish());
+        assertEquals(List.of(create, update), result.getSuperseded());
+    }
+
+    @Test
+    void keepsEventsFurtherApartThanWindow() {
+        OutboxEvent first = event(UPDATED, "u1", 0);
+        OutboxEvent second = event(UPDATED, "u1", 5000);
+
+        OutboxEventCoalescer.Result result = coalescer.coalesce(List.of(first, second));
+
+        assertEquals(List.of(first, second), result.getToPublish());
+    }
+
+    @Test
+    void passesBatchThroughWhenDisabled() {
+        OutboxEventCoalescer disabled = new OutboxEventCoalescer(false, 2000, UPDATED, DELETED);
+        List<OutboxEvent> batch = List.of(event(UPDATED, "u1", 0), event(UPDATED, "u1", 100));
+
+        assertSame(batch, disabled.coalesce(batch).getToPublish());
+    }
+
+    private OutboxEvent event(String topic, String key, long offsetMs) {
+        OutboxEvent event = new OutboxEvent(topic, key, "{}".getBytes(StandardCharsets.UTF_8));
+        event.setTimestamp(Instant.EPOCH.plusMillis(offsetMs));
+        return event;
+    }
+}
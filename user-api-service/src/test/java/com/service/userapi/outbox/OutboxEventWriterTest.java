@@ -0,0 +1,167 @@
+package com.service.userapi.outbox;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OutboxEventWriterTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final OutboxCollections collections = mock(OutboxCollections.class);
+    private final List<Object> published = new ArrayList<>();
+    private final OutboxEventClaimService claimService = mock(OutboxEventClaimService.class);
+    private final KafkaCircuitBreaker circuitBreaker = new KafkaCircuitBreaker(1, 30_000, new SimpleMeterRegistry());
+    private final OutboxEventWriter writer = new OutboxEventWriter(
+            mongoTemplate, collections, new ObjectMapper().findAndRegisterModules(), (ApplicationEventPublisher) published::add,
+            claimService, circuitBreaker);
+
+    OutboxEventWriterTest() {
+        when(collections.forWrite(any(Instant.class))).thenReturn("outbox_events");
+        ReflectionTestUtils.setField(writer, "fastPathEnabled", true);
+        ReflectionTestUtils.setField(writer, "fastPathGraceMs", 5000L);
+        ReflectionTestUtils.setField(writer, "fastPathMaxEvents", 2);
+        ReflectionTestUtils.setField(writer, "envelopeMaxEvents", 2);
+        ReflectionTestUtils.setField(writer, "envelopeMaxBytes", 1024);
+    }
+
+    @Test
+    void leasesSmallWritesToTheFastPathAndAnnouncesThem() throws Exception {
+        OutboxEvent event = writer.save("user-created-events", "user-1", Map.of("userId", "user-1"));
+
+        assertEquals(OutboxFastPathPublisher.OWNER, event.getLockedBy());
+        assertTrue(event.getLockedUntil().isAfter(Instant.now().plusSeconds(4)));
+        assertEquals("outbox_events", event.getCollectionName());
+        assertEquals(1, published.size());
+        assertEquals(List.of(event), ((OutboxEventsWritten) published.get(0)).getEvents());
+    }
+
+    @Test
+    void leavesLargeWritesToTheRelays() throws Exception {
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            events.add(writer.toOutboxEvent("user-deleted-events", "user-" + i, Map.of("userId", "user-" + i)));
+        }
+
+        writer.saveAll(events);
+
+        events.forEach(event -> assertNull(event.getLockedUntil()));
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void leavesWritesToTheRelaysWhileTheCircuitIsOpen() throws Exception {
+        circuitBreaker.onFailure();
+
+        OutboxEvent event = writer.save("user-created-events", "user-1", Map.of("userId", "user-1"));
+
+        assertNull(event.getLockedUntil());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void leavesWritesToTheRelaysWhenTheKeyHasAnOlderEvent() throws Exception {
+        when(claimService.hasOlderPending(eq(Set.of("user-1")), any(Instant.class))).thenReturn(true);
+
+        OutboxEvent event = writer.save("user-updated-events", "user-1", Map.of("userId", "user-1"));
+
+        assertNull(event.getLockedUntil());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void leavesEnvelopesToTheRelaysWhenOneOfTheirKeysHasAnOlderEvent() throws Exception {
+        when(claimService.hasOlderPending(eq(Set.of("user-0", "user-1")), any(Instant.class))).thenReturn(true);
+        List<OutboxEvent> envelopes = writer.toEnvelopes("user-deleted-events", "UserDeletedEvent",
+                List.of(Map.of("userId", "user-0"), Map.of("userId", "user-1")), payload -> payload.get("userId"));
+
+        writer.saveAll(envelopes);
+
+        assertNull(envelopes.get(0).getLockedUntil());
+        assertTrue(published.isEmpty());
+    }
+
+    @Test
+    void storesThePayloadAsJsonBytesThatSurviveTheRoundTripThroughMongo() throws Exception {
+        OutboxEvent event = writer.toOutboxEvent("user-created-events", "user-1", Map.of("userId", "user-1"));
+        assertArrayEquals("{\"userId\":\"user-1\"}".getBytes(StandardCharsets.UTF_8), event.getPayload());
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        Document stored = new Document();
+        converter.write(event, stored);
+
+        // Stored as-is (BSON binary), not re-encoded as a string; the driver reads it back as a Binary
+        assertInstanceOf(byte[].class, stored.get("payload"));
+        stored.put("payload", new Binary(stored.get("payload", byte[].class)));
+        assertArrayEquals(event.getPayload(), converter.read(OutboxEvent.class, stored).getPayload());
+    }
+
+    @Test
+    void gzipsLargePayloadsAndRecordsTheCodec() throws Exception {
+        ReflectionTestUtils.setField(writer, "compressionEnabled", true);
+        ReflectionTestUtils.setField(writer, "compressionMinBytes", 16);
+        Map<String, String> payload = Map.of("userId", "user-1", "bio", "a".repeat(100));
+
+        OutboxEvent event = writer.toOutboxEvent("user-created-events", "user-1", payload);
+
+        assertEquals(OutboxEvent.CODEC_GZIP, event.getCodec());
+        try (GZIPInputStream gunzip = new GZIPInputStream(new ByteArrayInputStream(event.getPayload()))) {
+            assertEquals(new ObjectMapper().valueToTree(payload), new ObjectMapper().readTree(gunzip));
+        }
+    }
+
+    @Test
+    void packsEventsIntoEnvelopesUpToTheCap() throws Exception {
+        List<Map<String, String>> payloads = List.of(
+                Map.of("userId", "user-0"), Map.of("userId", "user-1"), Map.of("userId", "user-2"));
+
+        List<OutboxEvent> envelopes = writer.toEnvelopes("user-deleted-events", "UserDeletedEvent", payloads,
+                payload -> payload.get("userId"));
+
+        assertEquals(2, envelopes.size());
+        // Keyed by a real user id and ordered against every user it carries
+        assertEquals("user-0", envelopes.get(0).getKey());
+        assertEquals(List.of("user-0", "user-1"), envelopes.get(0).getKeys());
+        assertEquals(List.of("user-2"), envelopes.get(1).getKeys());
+        JsonNode first = new ObjectMapper().readTree(envelopes.get(0).getPayload());
+        assertEquals("UserDeletedEvent", first.get("eventType").asText());
+        assertEquals(2, first.get("count").asInt());
+        assertEquals("user-1", first.get("events").get(1).get("userId").asText());
+        JsonNode second = new ObjectMapper().readTree(envelopes.get(1).getPayload());
+        assertEquals("user-2", second.get("events").get(0).get("userId").asText());
+    }
+}
@@ -0,0 +1,68 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxFastPathPublisherTest {
+
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final EventProcessingService eventProcessingService = mock(EventProcessingService.class);
+    private final OutboxFastPathPublisher fastPath = new OutboxFastPathPublisher(kafkaProducerService,
+            new KafkaCircuitBreaker(20, 30_000, new SimpleMeterRegistry()), eventProcessingService,
+            mock(OutboxMetrics.class), new SimpleMeterRegistry());
+    private final List<OutboxEvent> events = List.of(
+            new OutboxEvent("user-created-events", "user-1", new byte[0]),
+            new OutboxEvent("user-created-events", "user-2", new byte[0]));
+
+    OutboxFastPathPublisherTest() {
+        ReflectionTestUtils.setField(fastPath, "ackBatchSize", 500);
+    }
+
+    @Test
+    void sendsAWriteInOneKafkaTransactionInTransactionalMode() {
+        when(kafkaProducerService.isTransactional()).thenReturn(true);
+
+        fastPath.onEventsWritten(new OutboxEventsWritten(events));
+        fastPath.flushAcks();
+
+        verify(kafkaProducerService).publishInTransaction(events);
+        verify(kafkaProducerService, never()).publish(any(OutboxEvent.class));
+        verify(eventProcessingService).acknowledge(events);
+    }
+
+    @Test
+    void leavesAnAbortedTransactionToTheRelays() {
+        when(kafkaProducerService.isTransactional()).thenReturn(true);
+        when(kafkaProducerService.publishInTransaction(events)).thenThrow(new IllegalStateException("aborted"));
+
+        fastPath.onEventsWritten(new OutboxEventsWritten(events));
+        fastPath.flushAcks();
+
+        verify(eventProcessingService, never()).acknowledge(any());
+    }
+
+    @Test
+    void sendsEventsOneByOneOtherwise() {
+        when(kafkaProducerService.publish(any(OutboxEvent.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        fastPath.onEventsWritten(new OutboxEventsWritten(events));
+        fastPath.flushAcks();
+
+        verify(kafkaProducerService, times(2)).publish(any(OutboxEvent.class));
+        verify(kafkaProducerService, never()).publishInTransaction(any());
+        verify(eventProcessingService).acknowledge(events);
+    }
+}
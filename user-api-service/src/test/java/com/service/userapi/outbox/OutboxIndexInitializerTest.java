@@ -0,0 +1,78 @@
+package com.service.userapi.outbox;
+
+import com.service.userapi.outbox.deadletter.DeadLetterEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxIndexInitializerTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final IndexOperations outboxIndexes = mock(IndexOperations.class);
+    private final IndexOperations deadLetterIndexes = mock(IndexOperations.class);
+    private final OutboxIndexInitializer initializer = new OutboxIndexInitializer(mongoTemplate);
+
+    OutboxIndexInitializerTest() {
+        when(mongoTemplate.indexOps(any(Class.class))).thenReturn(mock(IndexOperations.class));
+        when(mongoTemplate.indexOps(OutboxEvent.class)).thenReturn(outboxIndexes);
+        when(mongoTemplate.indexOps(DeadLetterEvent.class)).thenReturn(deadLetterIndexes);
+        ReflectionTestUtils.setField(initializer, "publishedTtlSeconds", 3600L);
+        ReflectionTestUtils.setField(initializer, "deadLetterTtlSeconds", 604800L);
+        ReflectionTestUtils.setField(initializer, "redriveJobRetentionSeconds", 604800L);
+    }
+
+    @Test
+    void expiresPublishedEventsAndOldDeadLettersInTtlMode() {
+        ReflectionTestUtils.setField(initializer, "cleanupMode", "ttl");
+
+        initializer.createIndexes();
+
+        Document publishedTtl = indexes(outboxIndexes).get("publishedAt_ttl");
+        assertEquals(new Document("publishedAt", 1), publishedTtl.get("key"));
+        assertEquals(3600L, publishedTtl.get("expireAfterSeconds"));
+        Map<String, Document> deadLetter = indexes(deadLetterIndexes);
+        assertEquals(604800L, deadLetter.get("failedTimestamp_ttl").get("expireAfterSeconds"));
+        // Same key as the TTL index, which Mongo would refuse next to it
+        assertFalse(deadLetter.containsKey("failedTimestamp"));
+    }
+
+    @Test
+    void createsNoTtlIndexesForTheOutboxInDeleteMode() {
+        ReflectionTestUtils.setField(initializer, "cleanupMode", "delete");
+
+        initializer.createIndexes();
+
+        assertFalse(indexes(outboxIndexes).containsKey("publishedAt_ttl"));
+        Map<String, Document> deadLetter = indexes(deadLetterIndexes);
+        assertFalse(deadLetter.containsKey("failedTimestamp_ttl"));
+        assertNull(deadLetter.get("failedTimestamp").get("expireAfterSeconds"));
+    }
+
+    /**
+     * The indexes ensured on a collection by name, each as its key plus options.
+     */
+    private static Map<String, Document> indexes(IndexOperations indexOps) {
+        ArgumentCaptor<IndexDefinition> ensured = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(indexOps, atLeastOnce()).ensureIndex(ensured.capture());
+        return ensured.getAllValues().stream()
+                .map(index -> new Document(index.getIndexOptions()).append("key", index.getIndexKeys()))
+                .collect(Collectors.toMap(index -> index.getString("name"), Function.identity()));
+    }
+}
@@ -0,0 +1,51 @@
+package com.service.userapi.outbox;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OutboxMetricsTest {
+
+    private static final String COLLECTION = "outbox_events";
+
+    @Test
+    void agesOnlyEventsTheRelayCouldSendNow() {
+        OutboxEvent backingOff = new OutboxEvent("user-updated-events", "user-1", new byte[0]);
+        backingOff.setNextAttemptAt(Instant.now().plusSeconds(300));
+        // Created ten minutes ago, but its retry only became due a second ago
+        OutboxEvent retryDue = new OutboxEvent("user-created-events", "user-2", new byte[0]);
+        retryDue.setTimestamp(Instant.now().minus(Duration.ofMinutes(10)));
+        retryDue.setNextAttemptAt(Instant.now().minusSeconds(1));
+
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION))).thenReturn(List.of(backingOff));
+        when(mongoTemplate.findOne(any(Query.class), eq(OutboxEvent.class), eq(COLLECTION))).thenReturn(retryDue);
+        OutboxCollections collections = mock(OutboxCollections.class);
+        when(collections.forRead()).thenReturn(List.of(COLLECTION));
+
+        OutboxMetrics metrics = new OutboxMetrics(mongoTemplate, collections, new SimpleMeterRegistry());
+        metrics.refresh();
+
+        assertTrue(metrics.getOldestPendingAge().compareTo(Duration.ofSeconds(30)) < 0);
+        ArgumentCaptor<Query> due = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).findOne(due.capture(), eq(OutboxEvent.class), eq(COLLECTION));
+        // The backing-off key's later events wait behind it and are not counted either
+        assertTrue(due.getValue().getQueryObject().getList("$and", Document.class)
+                .contains(new Document("key", new Document("$nin", Set.of("user-1")))));
+    }
+}
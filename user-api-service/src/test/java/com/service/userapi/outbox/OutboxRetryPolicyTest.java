@@ -0,0 +1,33 @@
+package com.service.userapi.outbox;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OutboxRetryPolicyTest {
+
+    private final OutboxRetryPolicy retryPolicy = new OutboxRetryPolicy(5, 1000, 10_000);
+
+    @Test
+    void backsOffExponentiallyWithJitterUpToTheMaximum() {
+        for (int i = 0; i < 100; i++) {
+            assertBetween(retryPolicy.backoff(1), 500, 1000);
+            assertBetween(retryPolicy.backoff(3), 2000, 4000);
+            assertBetween(retryPolicy.backoff(50), 5000, 10_000);
+        }
+    }
+
+    @Test
+    void isExhaustedOnceTheAttemptBudgetIsSpent() {
+        assertFalse(retryPolicy.isExhausted(4));
+        assertTrue(retryPolicy.isExhausted(5));
+    }
+
+    private static void assertBetween(Duration delay, long minMs, long maxMs) {
+        assertTrue(delay.toMillis() >= minMs && delay.toMillis() <= maxMs,
+                () -> delay.toMillis() + " ms is not within [" + minMs + ", " + maxMs + "]");
+    }
+}
@@ -0,0 +1,127 @@
+package com.service.userapi.outbox.deadletter;
+
+import com.service.userapi.exception.BadRequestException;
+import com.service.userapi.outbox.RateLimiter;
+import com.service.userapi.payload.DeadLetterRedriveRequest;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DeadLetterRedriveServiceTest {
+
+    private static final Instant JOB_START = Instant.parse("2025-01-01T12:00:00Z");
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final DeadLetterService deadLetterService = mock(DeadLetterService.class);
+    private final DeadLetterRedriveService redriveService = new DeadLetterRedriveService(
+            mongoTemplate, deadLetterService, mock(DeadLetterRedriveJobRepository.class));
+    private final List<Integer> requeuedBatches = new ArrayList<>();
+    private final DeadLetterRedriveJob job = new DeadLetterRedriveJob(null, null);
+
+    DeadLetterRedriveServiceTest() {
+        List<DeadLetterEvent> deadLetters = IntStream.range(0, 5).mapToObj(i -> deadLetter("dead-" + i)).toList();
+        when(mongoTemplate.stream(any(Query.class), eq(DeadLetterEvent.class)))
+                .thenAnswer(invocation -> deadLetters.stream());
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeadLetterRedriveJob.class))).thenReturn(job);
+        doAnswer(invocation -> requeuedBatches.add(invocation.<List<?>>getArgument(0).size()))
+                .when(deadLetterService).requeue(anyList());
+    }
+
+    @Test
+    void onlyPicksUpDeadLettersThatFailedBeforeTheJobStarted() {
+        assertEquals(new Document("$lte", JOB_START), failedTimestamp(new DeadLetterRedriveRequest()));
+
+        // A later failedBefore would let events that fail again during the job back in
+        DeadLetterRedriveRequest later = new DeadLetterRedriveRequest();
+        later.setFailedBefore(JOB_START.plusSeconds(3600));
+        assertEquals(new Document("$lte", JOB_START), failedTimestamp(later));
+
+        DeadLetterRedriveRequest earlier = new DeadLetterRedriveRequest();
+        earlier.setFailedAfter(JOB_START.minusSeconds(7200));
+        earlier.setFailedBefore(JOB_START.minusSeconds(3600));
+        assertEquals(new Document("$gte", JOB_START.minusSeconds(7200)).append("$lt", JOB_START.minusSeconds(3600)),
+                failedTimestamp(earlier));
+    }
+
+    @Test
+    void rejectsAnInvalidErrorPattern() {
+        DeadLetterRedriveRequest request = new DeadLetterRedriveRequest();
+        request.setErrorPattern("timeout(");
+
+        assertThrows(BadRequestException.class, () -> redriveService.buildQuery(request, JOB_START));
+    }
+
+    @Test
+    void requeuesInBatchesOfTheBatchSize() {
+        redriveService.runRedrive(job.getId(), new Query(), 2, new RateLimiter(1_000_000));
+
+        assertEquals(List.of(2, 2, 1), requeuedBatches);
+        assertEquals(DeadLetterRedriveJob.Status.COMPLETED, finishedStatus().get("status"));
+    }
+
+    @Test
+    void stopsAfterTheCurrentBatchWhenCancelled() {
+        DeadLetterRedriveJob cancelled = new DeadLetterRedriveJob(null, null);
+        cancelled.setCancelRequested(true);
+        // Starting the job still sees it running; the progress update after the first batch does not
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(DeadLetterRedriveJob.class))).thenReturn(job, cancelled);
+
+        redriveService.runRedrive(job.getId(), new Query(), 2, new RateLimiter(1_000_000));
+
+        assertEquals(List.of(2), requeuedBatches);
+        assertEquals(DeadLetterRedriveJob.Status.CANCELLED, finishedStatus().get("status"));
+    }
+
+    @Test
+    void recordsAFailedBatchAsFailedWithItsError() {
+        doThrow(new IllegalStateException("Mongo unavailable")).when(deadLetterService).requeue(anyList());
+
+        redriveService.runRedrive(job.getId(), new Query(), 2, new RateLimiter(1_000_000));
+
+        Document finished = finishedStatus();
+        assertEquals(DeadLetterRedriveJob.Status.FAILED, finished.get("status"));
+        assertEquals("Mongo unavailable", finished.get("error"));
+    }
+
+    private Document failedTimestamp(DeadLetterRedriveRequest request) {
+        Query query = redriveService.buildQuery(request, JOB_START);
+        List<Document> filters = query.getQueryObject().getList("$and", Document.class);
+        return filters.get(filters.size() - 1).get("failedTimestamp", Document.class);
+    }
+
+    private Document finishedStatus() {
+        ArgumentCaptor<Update> finish = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), finish.capture(), eq(DeadLetterRedriveJob.class));
+        return finish.getValue().getUpdateObject().get("$set", Document.class);
+    }
+
+    private static DeadLetterEvent deadLetter(String id) {
+        DeadLetterEvent deadLetter = new DeadLetterEvent("event-" + id, "user-created-events", "user-1",
+                new byte[0], null, "Timed out");
+        ReflectionTestUtils.setField(deadLetter, "id", id);
+        return deadLetter;
+    }
+}
@@ -0,0 +1,57 @@
+package com.service.userapi.outbox.deadletter;
+
+import com.service.userapi.outbox.OutboxCollections;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventWriter;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+class DeadLetterServiceTest {
+
+    private final OutboxEventWriter outboxEventWriter = mock(OutboxEventWriter.class);
+    private final DeadLetterEventRepository deadLetterRepository = mock(DeadLetterEventRepository.class);
+    private final DeadLetterService deadLetterService = new DeadLetterService(mock(MongoTemplate.class),
+            mock(OutboxCollections.class), outboxEventWriter, deadLetterRepository);
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void requeuesDeadLettersAsFreshOutboxEventsAndRemovesThem() {
+        DeadLetterEvent compressed = deadLetter("dead-1", "user-1", "gzip");
+        DeadLetterEvent plain = deadLetter("dead-2", "user-2", null);
+
+        deadLetterService.requeue(List.of(compressed, plain));
+
+        InOrder order = inOrder(outboxEventWriter, deadLetterRepository);
+        ArgumentCaptor<List<OutboxEvent>> requeued = ArgumentCaptor.forClass(List.class);
+        order.verify(outboxEventWriter).saveAll(requeued.capture());
+        order.verify(deadLetterRepository).deleteAllById(List.of("dead-1", "dead-2"));
+
+        OutboxEvent first = requeued.getValue().get(0);
+        assertEquals(OutboxEvent.EventStatus.PENDING, first.getStatus());
+        assertEquals("user-created-events", first.getTopic());
+        assertEquals("user-1", first.getKey());
+        assertEquals("gzip", first.getCodec());
+        assertArrayEquals(compressed.getPayload(), first.getPayload());
+        assertEquals(0, first.getAttempts());
+        assertNull(requeued.getValue().get(1).getCodec());
+    }
+
+    private static DeadLetterEvent deadLetter(String id, String key, String codec) {
+        DeadLetterEvent deadLetter = new DeadLetterEvent("event-" + id, "user-created-events", key,
+                ("{\"userId\":\"" + key + "\"}").getBytes(StandardCharsets.UTF_8), codec, "Timed out");
+        ReflectionTestUtils.setField(deadLetter, "id", id);
+        return deadLetter;
+    }
+}
@@ -0,0 +1,279 @@
+package com.service.userapi.outbox.reemit;
+
+import com.service.userapi.model.User;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventClaimService;
+import com.service.userapi.outbox.OutboxEventWriter;
+import com.service.userapi.outbox.OutboxMetrics;
+import com.service.userapi.service.KafkaCircuitBreaker;
+import com.service.userapi.service.KafkaProducerService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserReemitServiceTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final UserReemitJobRepository jobRepository = mock(UserReemitJobRepository.class);
+    private final OutboxEventWriter outboxEventWriter = mock(OutboxEventWriter.class);
+    private final KafkaProducerService kafkaProducerService = mock(KafkaProducerService.class);
+    private final KafkaCircuitBreaker circuitBreaker = new KafkaCircuitBreaker(1, 30_000, new SimpleMeterRegistry());
+    private final OutboxEventClaimService claimService = mock(OutboxEventClaimService.class);
+    private final OutboxMetrics outboxMetrics = mock(OutboxMetrics.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final UserReemitService service = new UserReemitService(mongoTemplate, jobRepository, outboxEventWriter,
+            kafkaProducerService, circuitBreaker, claimService, outboxMetrics, transactionManager);
+
+    // user-1 .. user-5, in _id order
+    private final List<User> users = IntStream.rangeClosed(1, 5).mapToObj(i -> user("user-" + i)).toList();
+    // The '_id' lower bound of every batch read, null for the first
+    private final List<String> batchesAfter = Collections.synchronizedList(new ArrayList<>());
+    private final List<List<OutboxEvent>> saved = Collections.synchronizedList(new ArrayList<>());
+    private UserReemitJob job;
+
+    UserReemitServiceTest() throws Exception {
+        ReflectionTestUtils.setField(service, "userCreatedTopic", "user-created-events");
+        ReflectionTestUtils.setField(service, "maxOutboxBacklog", 100L);
+        ReflectionTestUtils.setField(service, "backlogCheckMs", 1L);
+        ReflectionTestUtils.setField(service, "staleAfterMs", 300_000L);
+        ReflectionTestUtils.setField(service, "ackTimeoutMs", 1_000L);
+
+        when(mongoTemplate.find(any(Query.class), eq(User.class))).thenAnswer(invocation -> nextBatch(invocation.getArgument(0)));
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(UserReemitJob.class))).thenAnswer(invocation -> modifyJob(invocation.getArgument(0), invocation.getArgument(1)));
+        when(outboxEventWriter.toOutboxEvent(anyString(), anyString(), any()))
+                .thenAnswer(call -> new OutboxEvent(call.getArgument(0), call.getArgument(1), new byte[0]));
+        when(outboxEventWriter.saveAll(anyList())).thenAnswer(invocation -> {
+            saved.add(new ArrayList<>(invocation.getArgument(0)));
+            return invocation.getArgument(0);
+        });
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(claimService.keysWithOlderPending(anyCollection(), any(Instant.class))).thenReturn(Set.of());
+    }
+
+    @Test
+    void emitsUsersInIdOrderOneBatchAtATime() {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 2, 1_000);
+
+        service.runReemit(job.getId());
+
+        assertEquals(Arrays.asList(null, "user-2", "user-4", "user-5"), batchesAfter);
+        assertEquals(List.of(2, 2, 1), saved.stream().map(List::size).toList());
+        assertEquals(UserReemitJob.Status.COMPLETED, job.getStatus());
+        assertEquals("user-5", job.getLastUserId());
+        assertEquals(5, job.getEmitted());
+    }
+
+    @Test
+    void resumesAfterTheLastCheckpoint() throws Exception {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 2, 1_000);
+        job.setStatus(UserReemitJob.Status.FAILED);
+        job.setRunToken("crashed-run");
+        job.setLastUserId("user-3");
+        job.setEmitted(3);
+        when(jobRepository.existsById(job.getId())).thenReturn(true);
+
+        service.resume(job.getId());
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (job.getStatus() != UserReemitJob.Status.COMPLETED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertEquals(UserReemitJob.Status.COMPLETED, job.getStatus());
+        assertEquals(Arrays.asList("user-3", "user-5"), batchesAfter);
+        assertEquals(5, job.getEmitted());
+    }
+
+    @Test
+    void stopsWhenAnotherRunTookTheJobOver() {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 2, 1_000);
+        // The job is resumed elsewhere while this run writes its first batch
+        when(outboxEventWriter.saveAll(anyList())).thenAnswer(invocation -> {
+            job.setRunToken("other-run");
+            return invocation.getArgument(0);
+        });
+
+        service.runReemit(job.getId());
+
+        // The batch is rolled back and left to the new run, which owns the job
+        ArgumentCaptor<TransactionStatus> transaction = ArgumentCaptor.forClass(TransactionStatus.class);
+        verify(transactionManager).commit(transaction.capture());
+        assertTrue(transaction.getValue().isRollbackOnly());
+        assertEquals(Arrays.asList((String) null), batchesAfter);
+        assertEquals(UserReemitJob.Status.RUNNING, job.getStatus());
+        assertEquals("other-run", job.getRunToken());
+        assertEquals(0, job.getEmitted());
+    }
+
+    @Test
+    void cancelsAfterTheCurrentBatch() {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 2, 1_000);
+        when(outboxEventWriter.saveAll(anyList())).thenAnswer(invocation -> {
+            job.setCancelRequested(true);
+            return invocation.getArgument(0);
+        });
+
+        service.runReemit(job.getId());
+
+        assertEquals(UserReemitJob.Status.CANCELLED, job.getStatus());
+        assertEquals("user-2", job.getLastUserId());
+        assertEquals(2, job.getEmitted());
+
+        service.cancel(job.getId());
+        ArgumentCaptor<Update> cancel = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), cancel.capture(), eq(UserReemitJob.class));
+        assertEquals(true, cancel.getValue().getUpdateObject().get("$set", Document.class).get("cancelRequested"));
+    }
+
+    @Test
+    void waitsWhileTheOutboxIsBackedUp() {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 5, 1_000);
+        when(outboxMetrics.getPendingCount()).thenReturn(5_000L, 5_000L, 5_000L, 0L);
+
+        service.runReemit(job.getId());
+
+        assertEquals(UserReemitJob.Status.COMPLETED, job.getStatus());
+        assertEquals(1, saved.size());
+        verify(outboxMetrics, atLeast(4)).getPendingCount();
+    }
+
+    @Test
+    void stopsWaitingForTheOutboxWhenCancelled() {
+        job = new UserReemitJob(UserReemitJob.Target.OUTBOX, 5, 1_000);
+        when(outboxMetrics.getPendingCount()).thenAnswer(invocation -> {
+            job.setCancelRequested(true);
+            return 5_000L;
+        });
+
+        service.runReemit(job.getId());
+
+        assertEquals(UserReemitJob.Status.CANCELLED, job.getStatus());
+        assertTrue(saved.isEmpty());
+    }
+
+    @Test
+    void publishesDirectlyWithStableIdsBehindOlderOutboxEvents() {
+        job = new UserReemitJob(UserReemitJob.Target.KAFKA, 5, 1_000);
+        List<OutboxEvent> published = Collections.synchronizedList(new ArrayList<>());
+        when(kafkaProducerService.publish(any(OutboxEvent.class))).thenAnswer(invocation -> {
+            published.add(invocation.getArgument(0));
+            return CompletableFuture.completedFuture(null);
+        });
+        // user-2 still has an event in the outbox, which its re-emit must not overtake
+        when(claimService.keysWithOlderPending(anyCollection(), any(Instant.class))).thenReturn(Set.of("user-2"));
+
+        service.runReemit(job.getId());
+
+        assertEquals(List.of("user-1", "user-3", "user-4", "user-5"), published.stream().map(OutboxEvent::getKey).toList());
+        published.forEach(event -> assertEquals(UserReemitService.eventId(job.getId(), event.getKey()), event.getId()));
+        assertEquals(1, saved.size());
+        assertEquals("user-2", saved.get(0).get(0).getKey());
+        assertEquals(UserReemitService.eventId(job.getId(), "user-2"), saved.get(0).get(0).getId());
+        assertEquals(UserReemitJob.Status.COMPLETED, job.getStatus());
+    }
+
+    @Test
+    void holdsDirectPublishingWhileTheCircuitIsOpen() {
+        job = new UserReemitJob(UserReemitJob.Target.KAFKA, 5, 1_000);
+        circuitBreaker.onFailure();
+        // Cancelled while the job waits for the circuit, which only refreshes updatedAt
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(UserReemitJob.class))).thenAnswer(invocation -> {
+                    Update update = invocation.getArgument(1);
+                    if (update.getUpdateObject().get("$set", Document.class).keySet().equals(Set.of("updatedAt"))) {
+                        job.setCancelRequested(true);
+                    }
+                    return modifyJob(invocation.getArgument(0), update);
+                });
+
+        service.runReemit(job.getId());
+
+        verify(kafkaProducerService, never()).publish(any(OutboxEvent.class));
+        assertEquals(UserReemitJob.Status.CANCELLED, job.getStatus());
+        assertEquals(0, job.getEmitted());
+    }
+
+    private List<User> nextBatch(Query query) {
+        Document idBound = query.getQueryObject().get("_id", Document.class);
+        String after = idBound != null ? idBound.getString("$gt") : null;
+        batchesAfter.add(after);
+        return users.stream()
+                .filter(user -> after == null || user.getId().compareTo(after) > 0)
+                .limit(query.getLimit())
+                .toList();
+    }
+
+    /**
+     * Applies a findAndModify to the one stored job, honouring the status and run token conditions.
+     */
+    private synchronized UserReemitJob modifyJob(Query query, Update update) {
+        Document criteria = query.getQueryObject();
+        if (!job.getId().equals(criteria.get("_id"))
+                || (criteria.containsKey("runToken") && !criteria.get("runToken").equals(job.getRunToken()))
+                || (criteria.get("status") instanceof UserReemitJob.Status status && status != job.getStatus())) {
+            return null;
+        }
+        Document changes = update.getUpdateObject();
+        Document set = changes.get("$set", Document.class);
+        if (set != null) {
+            set.forEach((field, value) -> {
+                switch (field) {
+                    case "status" -> job.setStatus((UserReemitJob.Status) value);
+                    case "runToken" -> job.setRunToken((String) value);
+                    case "lastUserId" -> job.setLastUserId((String) value);
+                    case "cancelRequested" -> job.setCancelRequested((Boolean) value);
+                    case "error" -> job.setError((String) value);
+                    case "updatedAt" -> job.setUpdatedAt((Instant) value);
+                    case "finishedAt" -> job.setFinishedAt((Instant) value);
+                    default -> throw new IllegalArgumentException(field);
+                }
+            });
+        }
+        Document unset = changes.get("$unset", Document.class);
+        if (unset != null && unset.containsKey("runToken")) {
+            job.setRunToken(null);
+        }
+        Document inc = changes.get("$inc", Document.class);
+        if (inc != null) {
+            job.setEmitted(job.getEmitted() + ((Number) inc.get("emitted")).longValue());
+        }
+        return job;
+    }
+
+    private static User user(String id) {
+        User user = new User(id, id + "@example.com", "Test", "User");
+        user.setId(id);
+        return user;
+    }
+}
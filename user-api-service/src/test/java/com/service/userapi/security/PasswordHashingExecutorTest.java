@@ -0,0 +1,113 @@
+package com.service.userapi.security;
+
+import com.service.userapi.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingExecutorTest {
+
+    @Test
+    void rejectsTasksThatCannotStartWithinTheWaitBudget() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 10, 50, 1, 0, registry);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Occupy the only hashing thread
+            CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "done";
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(ServiceUnavailableException.class, () -> executor.execute(() -> "never started"));
+            assertEquals(1.0, registry.get("password.hashing.rejected").counter().count());
+
+            release.countDown();
+            assertEquals("done", busy.get(5, TimeUnit.SECONDS));
+            assertEquals("ok", executor.execute(() -> "ok"));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void bulkWorkLeavesRoomForInteractiveHashes() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Two threads, a queue of four and at most one bulk task at a time
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(2, 4, 1000, 1, 1, registry);
+        AtomicInteger bulkRunning = new AtomicInteger();
+        AtomicInteger maxBulkRunning = new AtomicInteger();
+        try {
+            List<Supplier<Integer>> bulk = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                int n = i;
+                bulk.add(() -> {
+                    maxBulkRunning.accumulateAndGet(bulkRunning.incrementAndGet(), Math::max);
+                    sleep(20);
+                    bulkRunning.decrementAndGet();
+                    return n;
+                });
+            }
+            // Twenty tasks would overflow the queue if they were all submitted at once
+            CompletableFuture<List<Integer>> bulkResult = CompletableFuture.supplyAsync(() -> executor.executeAll(bulk));
+
+            for (int i = 0; i < 10; i++) {
+                assertEquals("login", executor.execute(() -> {
+                    sleep(10);
+                    return "login";
+                }));
+            }
+
+            assertEquals(IntStream.range(0, 20).boxed().toList(), bulkResult.get(10, TimeUnit.SECONDS));
+            assertEquals(1, maxBulkRunning.get());
+            assertEquals(0.0, registry.get("password.hashing.rejected").counter().count());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void upgradesHashesWithADifferentCost() {
+        PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 10, 1000, 1, 0, new SimpleMeterRegistry());
+        try {
+            OffloadingPasswordEncoder encoder = new OffloadingPasswordEncoder(5, executor);
+            String current = encoder.encode("secret123");
+
+            assertTrue(encoder.matches("secret123", current));
+            assertFalse(encoder.upgradeEncoding(current));
+            assertTrue(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret123")));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
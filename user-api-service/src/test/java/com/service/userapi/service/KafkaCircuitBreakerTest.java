@@ -0,0 +1,45 @@
+package com.service.userapi.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KafkaCircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresAndClosesAfterASuccessfulProbe() throws InterruptedException {
+        KafkaCircuitBreaker breaker = new KafkaCircuitBreaker(3, 50, new SimpleMeterRegistry());
+
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(100, breaker.permittedBatchSize(100));
+
+        breaker.onFailure();
+        assertEquals(KafkaCircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(0, breaker.permittedBatchSize(100));
+
+        Thread.sleep(60);
+        assertEquals(1, breaker.permittedBatchSize(100));
+        assertEquals(0, breaker.permittedBatchSize(100)); // one probe at a time
+        breaker.onFailure();
+        assertEquals(KafkaCircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(60);
+        assertEquals(1, breaker.permittedBatchSize(100));
+        breaker.onSuccess();
+        assertEquals(KafkaCircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(100, breaker.permittedBatchSize(100));
+    }
+
+    @Test
+    void aSuccessResetsTheFailureCount() {
+        KafkaCircuitBreaker breaker = new KafkaCircuitBreaker(2, 30_000, new SimpleMeterRegistry());
+
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        assertEquals(KafkaCircuitBreaker.State.CLOSED, breaker.getState());
+    }
+}
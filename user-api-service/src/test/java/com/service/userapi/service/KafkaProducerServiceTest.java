@@ -0,0 +1,120 @@
+package com.service.userapi.service;
+
+import com.service.userapi.outbox.OutboxEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class KafkaProducerServiceTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> outboxKafkaTemplate = mock(KafkaTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, byte[]> transactionalKafkaTemplate = mock(KafkaTemplate.class);
+    @SuppressWarnings("unchecked")
+    private final KafkaOperations<String, byte[]> operations = mock(KafkaOperations.class);
+    private final KafkaCircuitBreaker circuitBreaker = new KafkaCircuitBreaker(1, 30_000, new SimpleMeterRegistry());
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsTheStoredBytesUnchangedWithTheEventIdAndContentEncodingHeaders() {
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+        OutboxEvent event = event("event-1");
+        event.setCodec(OutboxEvent.CODEC_GZIP);
+
+        producer(null).publish(event);
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(outboxKafkaTemplate).send(sent.capture());
+        ProducerRecord<String, byte[]> record = sent.getValue();
+        assertEquals("user-created-events", record.topic());
+        assertEquals("user-1", record.key());
+        assertSame(event.getPayload(), record.value());
+        assertArrayEquals("event-1".getBytes(StandardCharsets.UTF_8),
+                record.headers().lastHeader(KafkaProducerService.EVENT_ID_HEADER).value());
+        assertArrayEquals("gzip".getBytes(StandardCharsets.UTF_8),
+                record.headers().lastHeader(KafkaProducerService.CONTENT_ENCODING_HEADER).value());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void leavesOutTheContentEncodingHeaderForPlainJson() {
+        when(outboxKafkaTemplate.send(any(ProducerRecord.class))).thenReturn(new CompletableFuture<>());
+
+        producer(null).publish(event("event-1"));
+
+        ArgumentCaptor<ProducerRecord<String, byte[]>> sent = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(outboxKafkaTemplate).send(sent.capture());
+        assertNull(sent.getValue().headers().lastHeader(KafkaProducerService.CONTENT_ENCODING_HEADER));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendsTheBatchInsideOneKafkaTransactionInTransactionalMode() {
+        when(transactionalKafkaTemplate.executeInTransaction(any()))
+                .thenAnswer(invocation -> invocation.<KafkaOperations.OperationsCallback<String, byte[], ?>>getArgument(0)
+                        .doInOperations(operations));
+        when(operations.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+        KafkaProducerService producer = producer(transactionalKafkaTemplate);
+
+        assertEquals(2, producer.publishInTransaction(List.of(event("event-1"), event("event-2"))).size());
+
+        verify(transactionalKafkaTemplate).executeInTransaction(any());
+        verify(operations, times(2)).send(any(ProducerRecord.class));
+        verify(outboxKafkaTemplate, never()).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    void reportsAnAbortedTransactionToTheCircuitBreaker() {
+        when(transactionalKafkaTemplate.executeInTransaction(any())).thenThrow(new KafkaException("Transaction aborted"));
+        KafkaProducerService producer = producer(transactionalKafkaTemplate);
+
+        assertThrows(KafkaException.class, () -> producer.publishInTransaction(List.of(event("event-1"))));
+        assertEquals(KafkaCircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void refusesTransactionalPublishingWhenItIsNotEnabled() {
+        KafkaProducerService producer = producer(null);
+
+        assertFalse(producer.isTransactional());
+        assertThrows(IllegalStateException.class, () -> producer.publishInTransaction(List.of(event("event-1"))));
+    }
+
+    @SuppressWarnings("unchecked")
+    private KafkaProducerService producer(KafkaTemplate<String, byte[]> transactional) {
+        ObjectProvider<KafkaTemplate<String, byte[]>> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(transactional);
+        return new KafkaProducerService(mock(KafkaTemplate.class), outboxKafkaTemplate, provider, circuitBreaker,
+                new SimpleMeterRegistry());
+    }
+
+    private static OutboxEvent event(String id) {
+        OutboxEvent event = new OutboxEvent("user-created-events", "user-1",
+                "{\"userId\":\"user-1\"}".getBytes(StandardCharsets.UTF_8));
+        event.setId(id);
+        return event;
+    }
+}
@@ -0,0 +1,148 @@
+package com.service.userapi.service;
+
+import com.service.userapi.availability.UserAvailabilityIndex;
+import com.service.userapi.exception.UserAlreadyExistsException;
+import com.service.userapi.model.User;
+import com.service.userapi.outbox.OutboxEvent;
+import com.service.userapi.outbox.OutboxEventWriter;
+import com.service.userapi.payload.BulkRegisterResult;
+import com.service.userapi.payload.RegisterRequest;
+import com.service.userapi.payload.UserPage;
+import com.service.userapi.repository.UserIndexInitializer;
+import com.service.userapi.repository.UserRepository;
+import com.service.userapi.security.OffloadingPasswordEncoder;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final OutboxEventWriter outboxEventWriter = mock(OutboxEventWriter.class);
+    private final UserIndexInitializer userIndexes = mock(UserIndexInitializer.class);
+    private final UserService userService = new UserService(userRepository, mock(PasswordEncoder.class),
+            outboxEventWriter, Validation.buildDefaultValidatorFactory().getValidator(),
+            userIndexes, mock(UserAvailabilityIndex.class), mock(PlatformTransactionManager.class));
+
+    UserServiceTest() throws Exception {
+        ReflectionTestUtils.setField(userService, "userCreatedTopic", "user-created-events");
+        ReflectionTestUtils.setField(userService, "defaultPageSize", 2);
+        ReflectionTestUtils.setField(userService, "maxPageSize", 1000);
+        when(outboxEventWriter.toOutboxEvent(anyString(), anyString(), any()))
+                .thenAnswer(call -> new OutboxEvent(call.getArgument(0), call.getArgument(1), new byte[0]));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void insertsAcceptedUsersInOneBatchAndReportsTheRest() {
+        User existing = new User();
+        existing.setUsername("taken");
+        when(userRepository.findUsernamesIn(anyCollection())).thenReturn(List.of(existing));
+        when(userRepository.findEmailsIn(anyCollection())).thenReturn(List.of());
+
+        List<BulkRegisterResult> results = userService.createUsers(List.of(
+                request("alice", "alice@example.com"),
+                request("taken", "taken@example.com"),
+                request("alice", "alice2@example.com"),
+                request("x", "not-an-email"),
+                request("bob", "bob@example.com")));
+
+        assertEquals(BulkRegisterResult.Status.CREATED, results.get(0).status);
+        assertEquals(BulkRegisterResult.Status.DUPLICATE, results.get(1).status);
+        assertEquals(BulkRegisterResult.Status.DUPLICATE, results.get(2).status);
+        assertEquals(BulkRegisterResult.Status.INVALID, results.get(3).status);
+        assertEquals(BulkRegisterResult.Status.CREATED, results.get(4).status);
+
+        ArgumentCaptor<List<User>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(1)).insert(inserted.capture());
+        assertEquals(List.of("alice", "bob"), inserted.getValue().stream().map(User::getUsername).toList());
+        assertEquals(results.get(4).userId, inserted.getValue().get(1).getId());
+        verify(outboxEventWriter, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    void hashesBulkPasswordsOnTheBulkPathBeforeTheTransactionStarts() {
+        OffloadingPasswordEncoder encoder = mock(OffloadingPasswordEncoder.class);
+        when(encoder.encodeAll(anyList())).thenReturn(List.of("hash-1", "hash-2"));
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        UserService bulkService = new UserService(userRepository, encoder, outboxEventWriter,
+                Validation.buildDefaultValidatorFactory().getValidator(), userIndexes,
+                mock(UserAvailabilityIndex.class), transactionManager);
+        ReflectionTestUtils.setField(bulkService, "userCreatedTopic", "user-created-events");
+
+        bulkService.createUsers(List.of(request("alice", "alice@example.com"), request("bob", "bob@example.com")));
+
+        InOrder order = inOrder(encoder, transactionManager, userRepository, outboxEventWriter);
+        order.verify(encoder).encodeAll(List.of("secret123", "secret123"));
+        order.verify(transactionManager).getTransaction(any());
+        order.verify(userRepository).insert(anyList());
+        order.verify(outboxEventWriter).saveAll(anyList());
+        order.verify(transactionManager).commit(any());
+        verify(encoder, never()).encode(any());
+    }
+
+    @Test
+    void createUserInsertsOnceAndNamesTheFieldOfADuplicateKey() {
+        when(userIndexes.isUniqueIndexesReady()).thenReturn(true);
+        when(userRepository.insert(any(User.class))).thenThrow(new DuplicateKeyException(
+                "E11000 duplicate key error collection: userdb.users index: email_unique dup key: { email: \"alice@example.com\" }"));
+
+        UserAlreadyExistsException ex = assertThrows(UserAlreadyExistsException.class,
+                () -> userService.createUser(request("alice", "alice@example.com")));
+
+        assertEquals("Email already exists: alice@example.com", ex.getMessage());
+        verify(userRepository, never()).findByUsername(anyString());
+        verify(userRepository, never()).findByEmail(anyString());
+    }
+
+    @Test
+    void pagesUsersByIdWithAnOpaqueCursor() {
+        when(userRepository.findAllByOrderByIdAsc(Limit.of(3))).thenReturn(List.of(user("a"), user("b"), user("c")));
+        when(userRepository.findByIdGreaterThanOrderByIdAsc("b", Limit.of(3))).thenReturn(List.of(user("c")));
+
+        UserPage first = userService.getUsers(null, null);
+        assertEquals(List.of("a", "b"), first.getUsers().stream().map(User::getId).toList());
+
+        UserPage last = userService.getUsers(first.getNextCursor(), null);
+        assertEquals(List.of("c"), last.getUsers().stream().map(User::getId).toList());
+        assertNull(last.getNextCursor());
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+
+    private static RegisterRequest request(String username, String email) {
+        RegisterRequest request = new RegisterRequest();
+        request.setUsername(username);
+        request.setEmail(email);
+        request.setPassword("secret123");
+        request.setFirstName("Test");
+        request.setLastName("User");
+        return request;
+    }
+}